@@ -0,0 +1,61 @@
+#!/usr/bin/env python3
+"""Compara dois resultados JSON do JMH (gerados com -rf json).
+
+Uso: scripts/comparar-jmh.py baseline.json atual.json [limiar_percentual]
+
+Mostra a variacao de cada benchmark e termina com codigo 1 se algum ficou
+mais lento que o limiar (10% por padrao). Os benchmarks do projeto medem
+tempo medio, onde um score maior e pior; para modos de throughput a
+comparacao e invertida.
+"""
+import json
+import sys
+
+
+def carregar(caminho):
+    with open(caminho) as ficheiro:
+        resultados = {}
+        for resultado in json.load(ficheiro):
+            parametros = resultado.get("params") or {}
+            chave = resultado["benchmark"] + "".join(
+                " %s=%s" % (nome, parametros[nome]) for nome in sorted(parametros))
+            resultados[chave] = resultado
+        return resultados
+
+
+def main():
+    if len(sys.argv) < 3:
+        print(__doc__)
+        return 2
+    baseline = carregar(sys.argv[1])
+    atual = carregar(sys.argv[2])
+    limiar = float(sys.argv[3]) if len(sys.argv) > 3 else 10.0
+
+    regressoes = 0
+    largura = max([len(chave) for chave in atual] + [10])
+    print("%-*s %14s %14s %9s" % (largura, "benchmark", "baseline", "atual", "variacao"))
+    for chave in sorted(atual):
+        metrica = atual[chave]["primaryMetric"]
+        if chave not in baseline:
+            print("%-*s %14s %14.3f %9s" % (largura, chave, "-", metrica["score"], "novo"))
+            continue
+        antes = baseline[chave]["primaryMetric"]["score"]
+        depois = metrica["score"]
+        variacao = (depois - antes) / antes * 100 if antes else 0.0
+        # Em throughput um score maior e melhor
+        pior = -variacao if atual[chave]["mode"] == "thrpt" else variacao
+        marca = ""
+        if pior > limiar:
+            marca = "  REGRESSAO"
+            regressoes += 1
+        print("%-*s %14.3f %14.3f %+8.1f%%%s %s" % (
+            largura, chave, antes, depois, variacao, marca, metrica["scoreUnit"]))
+
+    for chave in sorted(set(baseline) - set(atual)):
+        print("%-*s %14.3f %14s %9s" % (largura, chave, baseline[chave]["primaryMetric"]["score"], "-", "removido"))
+
+    return 1 if regressoes else 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
@@ -0,0 +1,84 @@
+package com.gasparcossa.springbootapiproject.benchmark;
+
+import com.gasparcossa.springbootapiproject.exception.GlobalExceptionHandler;
+import com.gasparcossa.springbootapiproject.exception.RecursoNaoEncontradoException;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validation;
+import javax.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+/**
+ * Caminhos de erro: criacao das excessoes da API e o tratamento delas pelo
+ * GlobalExceptionHandler
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GlobalExceptionHandlerBenchmark {
+
+	private GlobalExceptionHandler handler;
+	private ConstraintViolationException violacao;
+	private MethodArgumentTypeMismatchException tipoErrado;
+	private DataIntegrityViolationException capitalRepetida;
+
+	@Setup
+	public void iniciar() throws NoSuchMethodException {
+		handler = new GlobalExceptionHandler();
+		Pais invalido = Paises.gerar(1);
+		invalido.setNome("Pais 1");
+		invalido.setArea(0.1);
+		try (ValidatorFactory fabrica = Validation.buildDefaultValidatorFactory()) {
+			violacao = new ConstraintViolationException(fabrica.getValidator().validate(invalido));
+		}
+		MethodParameter parametro = new MethodParameter(
+				GlobalExceptionHandlerBenchmark.class.getDeclaredMethod("parametro", long.class), 0);
+		tipoErrado = new MethodArgumentTypeMismatchException("abc", long.class, "id", parametro, null);
+		capitalRepetida = new DataIntegrityViolationException("capital repetida",
+				new org.hibernate.exception.ConstraintViolationException("duplicate key",
+						new SQLException("duplicate key"), "pais_capital_uk"));
+	}
+
+	@Benchmark
+	public RecursoNaoEncontradoException criarRecursoNaoEncontrado() {
+		return new RecursoNaoEncontradoException("Pais", "nome", "Inexistente");
+	}
+
+	@Benchmark
+	public ResponseEntity<Object> tratarViolacaoDeRestricao() {
+		return handler.handleConstraintViolation(violacao);
+	}
+
+	@Benchmark
+	public ResponseEntity<Object> tratarTipoErrado() {
+		return handler.handleMethodArgumentTypeMismatch(tipoErrado);
+	}
+
+	@Benchmark
+	public ResponseEntity<Object> tratarCapitalRepetida() {
+		return handler.handleDataIntegrityViolation(capitalRepetida);
+	}
+
+	// So serve para criar o MethodParameter do tipoErrado
+	void parametro(long id) {
+	}
+
+}
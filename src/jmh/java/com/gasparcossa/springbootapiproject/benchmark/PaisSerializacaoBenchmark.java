@@ -0,0 +1,66 @@
+package com.gasparcossa.springbootapiproject.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gasparcossa.springbootapiproject.cache.PaisJsonCache;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import com.gasparcossa.springbootapiproject.web.PaisJsonHttpMessageConverter;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Serializacao JSON de uma lista de paises pelo Jackson e pelo conversor que
+ * junta os fragmentos do PaisJsonCache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaisSerializacaoBenchmark {
+
+	@Param({ "10", "250", "5000" })
+	private int paises;
+
+	private ObjectMapper objectMapper;
+	private PaisJsonHttpMessageConverter conversor;
+	private List<Pais> lista;
+
+	@Setup
+	public void iniciar() {
+		objectMapper = new ObjectMapper();
+		PaisJsonCache paisJsonCache = new PaisJsonCache();
+		ReflectionTestUtils.setField(paisJsonCache, "objectMapper", objectMapper);
+		ReflectionTestUtils.setField(paisJsonCache, "tamanhoMaximo", 100000);
+		conversor = new PaisJsonHttpMessageConverter(objectMapper, paisJsonCache);
+		lista = Paises.gerar(paises);
+	}
+
+	@Benchmark
+	public byte[] jackson() throws IOException {
+		return objectMapper.writeValueAsBytes(lista);
+	}
+
+	@Benchmark
+	public byte[] fragmentosEmCache() throws IOException {
+		MockHttpOutputMessage mensagem = new MockHttpOutputMessage();
+		conversor.write(lista, MediaType.APPLICATION_JSON, mensagem);
+		return mensagem.getBodyAsBytes();
+	}
+
+}
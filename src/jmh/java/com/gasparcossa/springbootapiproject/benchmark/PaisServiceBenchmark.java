@@ -0,0 +1,111 @@
+package com.gasparcossa.springbootapiproject.benchmark;
+
+import static com.gasparcossa.springbootapiproject.PaisesDeTeste.REGIOES;
+import static com.gasparcossa.springbootapiproject.PaisesDeTeste.letras;
+
+import com.gasparcossa.springbootapiproject.SpringBootApiProjectApplication;
+import com.gasparcossa.springbootapiproject.exception.RecursoNaoEncontradoException;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import com.gasparcossa.springbootapiproject.repository.PaisRepository;
+import com.gasparcossa.springbootapiproject.service.PaisService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Leituras do PaisServiceImpl contra uma Base de dados H2 em memoria com a
+ * quantidade de paises do parametro linhas. Com cache=false as leituras por
+ * atributo vao sempre a Base de dados
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaisServiceBenchmark {
+
+	@Param({ "250", "10000" })
+	private int linhas;
+
+	@Param({ "true", "false" })
+	private boolean cache;
+
+	private ConfigurableApplicationContext contexto;
+	private PaisService paisService;
+	private long[] ids;
+	private int proximo;
+
+	@Setup(Level.Trial)
+	public void iniciar() {
+		contexto = new SpringApplicationBuilder(SpringBootApiProjectApplication.class)
+				.profiles("h2")
+				.properties("server.port=0", "pais.cache.ativo=" + cache, "pais.filtro.ativo=" + cache,
+						"logging.level.root=WARN")
+				.run();
+		paisService = contexto.getBean(PaisService.class);
+		contexto.getBean(PaisRepository.class).deleteAllInBatch();
+		List<Long> inseridos = paisService.savePaisesEmLote(Paises.gerar(linhas)).getIds();
+		ids = new long[inseridos.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = inseridos.get(i);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void parar() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public Pais getPaisById() {
+		return paisService.getPaisById(ids[proximo++ % ids.length]);
+	}
+
+	@Benchmark
+	public List<Pais> getAllPaisesByNome() {
+		return paisService.getAllPaisesByNome("Pais" + letras(proximo++ % linhas));
+	}
+
+	@Benchmark
+	public void getAllPaisesByNomeInexistente(Blackhole blackhole) {
+		try {
+			blackhole.consume(paisService.getAllPaisesByNome("Inexistente" + letras(proximo++ % linhas)));
+		} catch (RecursoNaoEncontradoException ex) {
+			blackhole.consume(ex);
+		}
+	}
+
+	@Benchmark
+	public List<Pais> getAllPaisesByRegiao() {
+		return paisService.getAllPaisesByRegiao(REGIOES[proximo++ % REGIOES.length]);
+	}
+
+	@Benchmark
+	public Object getPrimeiraPagina() {
+		return paisService.getPaginaDePaises(0, 100, null);
+	}
+
+	@Benchmark
+	public boolean sameCapitalInPaises() {
+		Pais pais = new Pais();
+		pais.setCapital("Capital" + letras(proximo++ % linhas));
+		return paisService.sameCapitalInPaises(pais);
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.gasparcossa.springbootapiproject.benchmark;
+
+import com.gasparcossa.springbootapiproject.model.Pais;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bean Validation de um Pais valido e de um Pais que falha nas restricoes
+ * \@Pattern de todos atributos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaisValidacaoBenchmark {
+
+	private ValidatorFactory fabrica;
+	private Validator validator;
+	private Pais valido;
+	private Pais invalido;
+
+	@Setup
+	public void iniciar() {
+		fabrica = Validation.buildDefaultValidatorFactory();
+		validator = fabrica.getValidator();
+		valido = Paises.gerar(42);
+		invalido = Paises.gerar(42);
+		invalido.setNome("Pais 123");
+		invalido.setCapital("Capital!");
+		invalido.setRegiao("Regiao#");
+		invalido.setSubRegiao("Sub 9");
+		invalido.setArea(0.1);
+	}
+
+	@TearDown
+	public void parar() {
+		fabrica.close();
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<Pais>> validarPaisValido() {
+		return validator.validate(valido);
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<Pais>> validarPaisInvalido() {
+		return validator.validate(invalido);
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.gasparcossa.springbootapiproject.benchmark;
+
+import com.gasparcossa.springbootapiproject.PaisesDeTeste;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gera paises validos e distintos para os benchmarks, a partir dos paises dos
+ * testes. O perfil benchmark compila src/jmh/java junto com os testes
+ */
+final class Paises {
+
+	private Paises() {
+	}
+
+	static List<Pais> gerar(int quantidade) {
+		List<Pais> paises = new ArrayList<Pais>(quantidade);
+		for (int i = 0; i < quantidade; i++) {
+			paises.add(gerar(i));
+		}
+		return paises;
+	}
+
+	// Com id e versao, como se ja tivesse sido lido da Base de dados
+	static Pais gerar(int indice) {
+		Pais pais = PaisesDeTeste.novoPais(indice);
+		pais.setId(indice + 1);
+		pais.setVersao(0L);
+		return pais;
+	}
+
+}
@@ -0,0 +1,133 @@
+package com.gasparcossa.springbootapiproject.cache;
+
+import com.gasparcossa.springbootapiproject.datasource.ContextoDeRoteamento;
+import com.gasparcossa.springbootapiproject.event.PaisesAlteradosEvent;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Junta leituras iguais feitas ao mesmo tempo numa unica consulta. A primeira
+ * thread executa a consulta e as que chegam enquanto ela corre esperam e
+ * recebem o mesmo resultado, ou a mesma excessao. A consulta sai do mapa assim
+ * que termina, com ou sem sucesso, e a proxima leitura executa outra. Todas
+ * recebem o mesmo objeto, entao a consulta nao pode devolver entidades geridas
+ * pelo contexto de persistencia da primeira thread.
+ *
+ * Quem le da primaria para ver as suas proprias escritas nunca partilha a
+ * consulta de quem le da replica
+ */
+@Component
+public class ConsultasEmAndamento {
+
+    @Value("${pais.coalescencia.ativo:true}")
+    private boolean ativo;
+
+    private final Map<Chave, CompletableFuture<Object>> emAndamento = new ConcurrentHashMap<Chave, CompletableFuture<Object>>();
+
+    // Muda a cada pais alterado, assim uma leitura que comecou antes da
+    // alteracao nao e partilhada com quem chega depois dela
+    private final AtomicLong geracao = new AtomicLong();
+
+    private final AtomicLong executadas = new AtomicLong();
+    private final AtomicLong partilhadas = new AtomicLong();
+
+    /**
+     * Executa a consulta ou espera pela mesma consulta que ja esta a correr
+     * 
+     * @param chave    Identifica a consulta, com equals e hashCode
+     * @param consulta Consulta a Base de dados
+     * @return O resultado da consulta
+     **/
+    @SuppressWarnings("unchecked")
+    public <T> T executar(Object chave, Supplier<T> consulta) {
+        if (!ativo) {
+            return consulta.get();
+        }
+        Chave chaveDaGeracao = new Chave(chave, geracao.get(), ContextoDeRoteamento.isPrimariaForcada());
+        CompletableFuture<Object> nova = new CompletableFuture<Object>();
+        CompletableFuture<Object> existente = emAndamento.putIfAbsent(chaveDaGeracao, nova);
+        if (existente != null) {
+            partilhadas.incrementAndGet();
+            return (T) aguardar(existente);
+        }
+        executadas.incrementAndGet();
+        try {
+            T resultado = consulta.get();
+            nova.complete(resultado);
+            return resultado;
+        } catch (RuntimeException | Error ex) {
+            nova.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            emAndamento.remove(chaveDaGeracao, nova);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alterado(PaisesAlteradosEvent eventos) {
+        geracao.incrementAndGet();
+    }
+
+    public long getExecutadas() {
+        return executadas.get();
+    }
+
+    public long getPartilhadas() {
+        return partilhadas.get();
+    }
+
+    public int getEmAndamento() {
+        return emAndamento.size();
+    }
+
+    private static Object aguardar(CompletableFuture<Object> consulta) {
+        try {
+            return consulta.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private static class Chave {
+
+        private final Object consulta;
+        private final long geracao;
+        private final boolean primariaForcada;
+
+        Chave(Object consulta, long geracao, boolean primariaForcada) {
+            this.consulta = consulta;
+            this.geracao = geracao;
+            this.primariaForcada = primariaForcada;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Chave)) {
+                return false;
+            }
+            Chave outra = (Chave) o;
+            return geracao == outra.geracao && primariaForcada == outra.primariaForcada
+                    && consulta.equals(outra.consulta);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(consulta, geracao, primariaForcada);
+        }
+    }
+
+}
@@ -0,0 +1,234 @@
+package com.gasparcossa.springbootapiproject.cache;
+
+import com.gasparcossa.springbootapiproject.datasource.ContextoDeRoteamento;
+import com.gasparcossa.springbootapiproject.datasource.RotaDataSource;
+import com.gasparcossa.springbootapiproject.datasource.RoteamentoDataSource;
+import com.gasparcossa.springbootapiproject.event.PaisAlteradoEvent;
+import com.gasparcossa.springbootapiproject.event.PaisesAlteradosEvent;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Cache em memoria das consultas de paises por atributo (nome, capital, regiao,
+ * sub-regiao e area). Cada entrada guarda o resultado de uma consulta e sai do
+ * cache quando passa o tempo de vida, quando o cache fica cheio (a menos usada
+ * sai primeiro) ou quando um pais que ela contem, ou que passaria a conter, e
+ * alterado.
+ *
+ * Com uma replica, quem le da primaria para ver as suas proprias escritas nao
+ * usa o cache, e as leituras da replica nao o preenchem durante a janela
+ * pais.datasource.leitura-propria-ms depois da ultima alteracao, quando a
+ * replica ainda pode ter as linhas de antes dela.
+ *
+ * O cache guarda copias desanexadas dos paises, nunca as entidades do contexto
+ * de persistencia de quem fez a consulta. Como no PaisSnapshot, os paises
+ * devolvidos sao partilhados e nao devem ser alterados por quem os le
+ */
+@Component
+public class PaisConsultaCache {
+
+    @Value("${pais.cache.ativo:true}")
+    private boolean ativo;
+
+    @Value("${pais.cache.tamanho-maximo:1000}")
+    private int tamanhoMaximo;
+
+    @Value("${pais.cache.ttl-segundos:300}")
+    private long ttlSegundos;
+
+    @Value("${pais.datasource.replica.url:}")
+    private String urlDaReplica;
+
+    @Value("${pais.datasource.leitura-propria-ms:5000}")
+    private long janelaDaReplicaMs;
+
+    // Em ordem de acesso, assim a primeira entrada e sempre a menos usada
+    private final LinkedHashMap<Chave, Entrada> entradas = new LinkedHashMap<Chave, Entrada>(16, 0.75f, true);
+
+    // Chaves em que cada pais aparece, para invalidar so o que ele afeta
+    private final Map<Long, Set<Chave>> chavesPorId = new HashMap<Long, Set<Chave>>();
+
+    // Muda a cada invalidacao, para nao guardar um resultado lido antes dela
+    private long geracao;
+
+    // Em System.nanoTime, as leituras da replica nao sao guardadas ate la
+    private long replicaAtrasadaAte = System.nanoTime();
+
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong despejos = new AtomicLong();
+    private final AtomicLong invalidacoes = new AtomicLong();
+
+    /**
+     * Devolve o resultado em cache da consulta pelo atributo, ou executa a
+     * consulta e guarda o seu resultado
+     * 
+     * @param atributo Nome do atributo da classe Pais
+     * @param valor    Valor procurado
+     * @param consulta Consulta a Base de dados, executada so quando nao ha cache
+     * @return Lista imutavel dos paises com esse valor
+     **/
+    public List<Pais> obter(String atributo, Object valor, Supplier<List<Pais>> consulta) {
+        if (!ativo) {
+            return consulta.get();
+        }
+        Chave chave = new Chave(atributo, valor);
+        boolean primariaForcada = ContextoDeRoteamento.isPrimariaForcada();
+        boolean daReplica = !urlDaReplica.isEmpty() && RoteamentoDataSource.rotaAtual() == RotaDataSource.REPLICA;
+        long geracaoDaLeitura;
+        synchronized (this) {
+            Entrada entrada = primariaForcada ? null : entradas.get(chave);
+            if (entrada != null && entrada.expiraEm > System.nanoTime()) {
+                acertos.incrementAndGet();
+                return entrada.paises;
+            }
+            if (entrada != null) {
+                remover(chave, entrada);
+                despejos.incrementAndGet();
+            }
+            geracaoDaLeitura = geracao;
+        }
+        falhas.incrementAndGet();
+
+        // A consulta corre fora do lock para nao bloquear as outras leituras
+        List<Pais> lidos = consulta.get();
+        List<Pais> paises = new ArrayList<Pais>(lidos.size());
+        for (Pais pais : lidos) {
+            paises.add(pais.copiar());
+        }
+        paises = Collections.unmodifiableList(paises);
+        synchronized (this) {
+            if (geracaoDaLeitura == geracao && !(daReplica && System.nanoTime() - replicaAtrasadaAte < 0)) {
+                guardar(chave, new Entrada(paises, System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSegundos)));
+            }
+        }
+        return paises;
+    }
+
+    /**
+     * Invalida as entradas afetadas por um pais alterado: as que ja o contem e
+     * as que passariam a conte-lo pelos seus novos valores
+     * 
+     * @param eventos Alteracoes confirmadas, publicadas pelo PaisService
+     **/
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void invalidar(PaisesAlteradosEvent eventos) {
+        geracao++;
+        replicaAtrasadaAte = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(janelaDaReplicaMs);
+        for (PaisAlteradoEvent evento : eventos.getAlteracoes()) {
+            invalidar(evento);
+        }
+    }
+
+    private void invalidar(PaisAlteradoEvent evento) {
+        Set<Chave> afetadas = new HashSet<Chave>();
+        Set<Chave> doPais = chavesPorId.get(evento.getId());
+        if (doPais != null) {
+            afetadas.addAll(doPais);
+        }
+        Pais pais = evento.getPais();
+        if (pais != null) {
+            afetadas.add(new Chave("nome", pais.getNome()));
+            afetadas.add(new Chave("capital", pais.getCapital()));
+            afetadas.add(new Chave("regiao", pais.getRegiao()));
+            afetadas.add(new Chave("subRegiao", pais.getSubRegiao()));
+            afetadas.add(new Chave("area", pais.getArea()));
+        }
+        for (Chave chave : afetadas) {
+            Entrada entrada = entradas.get(chave);
+            if (entrada != null) {
+                remover(chave, entrada);
+                invalidacoes.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Contadores de uso do cache
+     * 
+     * @return Mapa com acertos, falhas, despejos, invalidacoes e tamanho
+     **/
+    public Map<String, Long> getEstatisticas() {
+        Map<String, Long> estatisticas = new LinkedHashMap<String, Long>();
+        estatisticas.put("acertos", acertos.get());
+        estatisticas.put("falhas", falhas.get());
+        estatisticas.put("despejos", despejos.get());
+        estatisticas.put("invalidacoes", invalidacoes.get());
+        synchronized (this) {
+            estatisticas.put("tamanho", (long) entradas.size());
+        }
+        return estatisticas;
+    }
+
+    private void guardar(Chave chave, Entrada entrada) {
+        Entrada anterior = entradas.put(chave, entrada);
+        if (anterior != null) {
+            desindexar(chave, anterior);
+        }
+        for (Pais pais : entrada.paises) {
+            chavesPorId.computeIfAbsent(pais.getId(), id -> new HashSet<Chave>()).add(chave);
+        }
+        // Removemos a menos usada ate voltar ao tamanho maximo
+        Iterator<Map.Entry<Chave, Entrada>> iterator = entradas.entrySet().iterator();
+        while (entradas.size() > tamanhoMaximo && iterator.hasNext()) {
+            Map.Entry<Chave, Entrada> maisAntiga = iterator.next();
+            iterator.remove();
+            desindexar(maisAntiga.getKey(), maisAntiga.getValue());
+            despejos.incrementAndGet();
+        }
+    }
+
+    private void remover(Chave chave, Entrada entrada) {
+        entradas.remove(chave);
+        desindexar(chave, entrada);
+    }
+
+    private void desindexar(Chave chave, Entrada entrada) {
+        for (Pais pais : entrada.paises) {
+            Set<Chave> chaves = chavesPorId.get(pais.getId());
+            if (chaves != null) {
+                chaves.remove(chave);
+                if (chaves.isEmpty()) {
+                    chavesPorId.remove(pais.getId());
+                }
+            }
+        }
+    }
+
+    @Data
+    private static class Chave {
+
+        private final String atributo;
+
+        private final Object valor;
+
+    }
+
+    private static class Entrada {
+
+        private final List<Pais> paises;
+
+        private final long expiraEm;
+
+        Entrada(List<Pais> paises, long expiraEm) {
+            this.paises = paises;
+            this.expiraEm = expiraEm;
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.gasparcossa.springbootapiproject.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gasparcossa.springbootapiproject.event.PaisAlteradoEvent;
+import com.gasparcossa.springbootapiproject.event.PaisesAlteradosEvent;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Guarda cada pais ja serializado em JSON (bytes UTF-8), pela sua versao. As
+ * listas de paises sao escritas concatenando esses fragmentos, sem o Jackson
+ * percorrer cada pais outra vez. Passando do tamanho maximo saem so os
+ * fragmentos menos usados
+ */
+@Component
+public class PaisJsonCache {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${pais.json-cache.tamanho-maximo:100000}")
+    private int tamanhoMaximo;
+
+    // Em ordem de acesso, assim o primeiro fragmento e sempre o menos usado
+    private final LinkedHashMap<Long, Fragmento> fragmentos = new LinkedHashMap<Long, Fragmento>(16, 0.75f, true);
+
+    /**
+     * Devolve o JSON do pais, serializando-o so se a versao em cache nao for a
+     * mesma. Os bytes devolvidos nao devem ser alterados
+     * 
+     * @param pais Pais a serializar
+     * @return O JSON do pais em UTF-8
+     **/
+    public byte[] getJson(Pais pais) throws JsonProcessingException {
+        // Sem versao nao ha como saber se o fragmento ainda vale
+        if (pais.getVersao() == null) {
+            return objectMapper.writeValueAsBytes(pais);
+        }
+        synchronized (this) {
+            Fragmento fragmento = fragmentos.get(pais.getId());
+            if (fragmento != null && fragmento.versao == pais.getVersao()) {
+                return fragmento.json;
+            }
+        }
+        // A serializacao fica fora do lock
+        byte[] json = objectMapper.writeValueAsBytes(pais);
+        synchronized (this) {
+            fragmentos.put(pais.getId(), new Fragmento(pais.getVersao(), json));
+            // Removemos o menos usado ate voltar ao tamanho maximo
+            Iterator<Long> iterator = fragmentos.keySet().iterator();
+            while (fragmentos.size() > tamanhoMaximo && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        return json;
+    }
+
+    /**
+     * Descarta o fragmento de um pais alterado
+     * 
+     * @param eventos Alteracoes confirmadas, publicadas pelo PaisService
+     **/
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void invalidar(PaisesAlteradosEvent eventos) {
+        for (PaisAlteradoEvent evento : eventos.getAlteracoes()) {
+            fragmentos.remove(evento.getId());
+        }
+    }
+
+    private static class Fragmento {
+
+        private final long versao;
+
+        private final byte[] json;
+
+        Fragmento(long versao, byte[] json) {
+            this.versao = versao;
+            this.json = json;
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.gasparcossa.springbootapiproject.cache;
+
+import com.gasparcossa.springbootapiproject.event.PaisAlteradoEvent;
+import com.gasparcossa.springbootapiproject.event.PaisesAlteradosEvent;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Guarda em memoria o que e preciso para responder aos GET condicionais sem ir
+ * a Base de dados: um contador de alteracoes da tabela, o momento da ultima
+ * alteracao e a ultima versao conhecida de cada pais.
+ *
+ * Estes valores so acompanham as escritas desta instancia da API. Para que
+ * escritas feitas noutras instancias tambem sejam vistas, o contador avanca e
+ * as versoes conhecidas sao esquecidas a cada recarga da PaisRecarga
+ */
+@Component
+public class PaisVersoes {
+
+    private static final long REMOVIDO = Long.MAX_VALUE;
+
+    // Diferencia os contadores de instancias e arranques diferentes
+    private final String instancia = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong contador = new AtomicLong();
+
+    private volatile long ultimaAlteracao = System.currentTimeMillis();
+
+    // As versoes so avancam: uma leitura lenta nao pode trazer de volta uma
+    // versao antiga depois de uma escrita. Um pais deletado fica com REMOVIDO
+    private final Map<Long, Long> versoesConhecidas = new ConcurrentHashMap<Long, Long>();
+
+    /**
+     * ETag fraca de qualquer lista de paises, muda a cada escrita na tabela. E
+     * fraca porque o mesmo conteudo sai em JSON, Smile, CBOR ou protobuf, com ou
+     * sem gzip, e o Tomcat nao comprime respostas com ETag forte
+     **/
+    public String getEtagDaTabela() {
+        return "W/\"t" + instancia + "-" + contador.get() + "\"";
+    }
+
+    /**
+     * ETag fraca de um pais pela sua versao na Base de dados
+     **/
+    public static String getEtagDoPais(long id, long versao) {
+        return "W/\"p" + id + "-" + versao + "\"";
+    }
+
+    /**
+     * @return A ETag do pais se a sua versao e conhecida, senao nullo
+     **/
+    public String getEtagConhecida(long id) {
+        Long versao = versoesConhecidas.get(id);
+        return versao == null || versao == REMOVIDO ? null : getEtagDoPais(id, versao);
+    }
+
+    /**
+     * Momento da ultima alteracao da tabela, usado como Last-Modified
+     **/
+    public long getUltimaAlteracao() {
+        return ultimaAlteracao;
+    }
+
+    /**
+     * Guarda a versao de um pais lido da Base de dados, se for mais nova que a
+     * conhecida
+     **/
+    public void registrar(long id, Long versao) {
+        if (versao != null) {
+            versoesConhecidas.merge(id, versao, Math::max);
+        }
+    }
+
+    /**
+     * Avanca o contador e atualiza as versoes a cada escrita confirmada
+     * 
+     * @param eventos Alteracoes confirmadas, publicadas pelo PaisService
+     **/
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alterar(PaisesAlteradosEvent eventos) {
+        for (PaisAlteradoEvent evento : eventos.getAlteracoes()) {
+            alterar(evento);
+        }
+        ultimaAlteracao = System.currentTimeMillis();
+        contador.incrementAndGet();
+    }
+
+    private void alterar(PaisAlteradoEvent evento) {
+        if (evento.getPais() == null) {
+            versoesConhecidas.put(evento.getId(), REMOVIDO);
+        } else if (evento.getPais().getVersao() == null) {
+            versoesConhecidas.remove(evento.getId());
+        } else {
+            versoesConhecidas.merge(evento.getId(), evento.getPais().getVersao(), Math::max);
+        }
+    }
+
+    /**
+     * Limita o tempo em que uma escrita de outra instancia pode passar
+     * despercebida
+     **/
+    public void expirar() {
+        versoesConhecidas.clear();
+        ultimaAlteracao = System.currentTimeMillis();
+        contador.incrementAndGet();
+    }
+
+}
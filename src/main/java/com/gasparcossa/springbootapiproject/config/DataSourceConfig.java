@@ -0,0 +1,79 @@
+package com.gasparcossa.springbootapiproject.config;
+
+import com.gasparcossa.springbootapiproject.datasource.RotaDataSource;
+import com.gasparcossa.springbootapiproject.datasource.RoteamentoDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * O DataSource usado pelo JPA e sempre um LazyConnectionDataSourceProxy: a
+ * transacao so tira uma conexao do pool no primeiro statement, entao as
+ * leituras servidas da memoria dentro de um @Transactional nao ocupam o pool.
+ *
+ * Com pais.datasource.replica.url definida a API usa dois pools: a primaria,
+ * configurada como sempre em spring.datasource.*, e a replica em
+ * pais.datasource.replica.* (url, username, password e hikari.*). As transacoes
+ * somente de leitura sao entao encaminhadas para a replica
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Autowired
+    private Environment environment;
+
+    @Bean
+    public HikariDataSource primaria(DataSourceProperties properties) {
+        return criarPool(properties, "spring.datasource.hikari", "primaria");
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "pais.datasource.replica.url")
+    public HikariDataSource replica() throws Exception {
+        DataSourceProperties properties = Binder.get(environment)
+                .bind("pais.datasource.replica", DataSourceProperties.class).get();
+        properties.setBeanClassLoader(getClass().getClassLoader());
+        properties.afterPropertiesSet();
+        return criarPool(properties, "pais.datasource.replica.hikari", "replica");
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaria") DataSource primaria,
+            @Qualifier("replica") ObjectProvider<DataSource> replica) {
+        DataSource daReplica = replica.getIfAvailable();
+        return new LazyConnectionDataSourceProxy(daReplica == null ? primaria : roteamento(primaria, daReplica));
+    }
+
+    private static RoteamentoDataSource roteamento(DataSource primaria, DataSource replica) {
+        Map<Object, Object> destinos = new HashMap<Object, Object>();
+        destinos.put(RotaDataSource.PRIMARIA, primaria);
+        destinos.put(RotaDataSource.REPLICA, replica);
+        RoteamentoDataSource roteamento = new RoteamentoDataSource();
+        roteamento.setTargetDataSources(destinos);
+        roteamento.setDefaultTargetDataSource(primaria);
+        roteamento.afterPropertiesSet();
+        return roteamento;
+    }
+
+    private HikariDataSource criarPool(DataSourceProperties properties, String prefixoHikari, String nome) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind(prefixoHikari, Bindable.ofInstance(pool));
+        pool.setPoolName(nome);
+        return pool;
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.gasparcossa.springbootapiproject.config;
+
+import com.gasparcossa.springbootapiproject.cache.ConsultasEmAndamento;
+import com.gasparcossa.springbootapiproject.cache.PaisConsultaCache;
+import com.gasparcossa.springbootapiproject.event.FeedDeAlteracoes;
+import com.gasparcossa.springbootapiproject.index.PaisFiltroDeMembros;
+import com.gasparcossa.springbootapiproject.index.PaisReadModel;
+import com.gasparcossa.springbootapiproject.limiter.ClasseDeEndpoint;
+import com.gasparcossa.springbootapiproject.limiter.LimitadorAimd;
+import com.gasparcossa.springbootapiproject.limiter.LimitesDeConcorrencia;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.Arrays;
+import java.util.Map;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Regista no Micrometer as metricas dos componentes em memoria da API
+ */
+@Configuration
+public class MetricasConfig {
+
+    /**
+     * Tamanho, taxa de falsos positivos e consultas evitadas dos filtros de Bloom
+     **/
+    @Bean
+    public MeterBinder metricasDoFiltroDeMembros(PaisFiltroDeMembros filtro) {
+        return registry -> {
+            for (String atributo : Arrays.asList("nome", "capital", "regiao", "subRegiao")) {
+                for (String metrica : Arrays.asList("elementos", "bytes", "funcoes", "taxaDeFalsosPositivos")) {
+                    Gauge.builder("pais.filtro." + metrica, filtro, f -> valor(f.getEstatisticas(), atributo, metrica))
+                            .tag("atributo", atributo)
+                            .register(registry);
+                }
+            }
+            FunctionCounter.builder("pais.filtro.consultas.evitadas", filtro, PaisFiltroDeMembros::getConsultasEvitadas)
+                    .description("Consultas respondidas com 404 sem ir a Base de dados")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Idade do snapshot do modo de leitura em memoria
+     **/
+    @Bean
+    public MeterBinder metricasDoReadModel(PaisReadModel readModel) {
+        return registry -> {
+            Gauge.builder("pais.snapshot.idade", readModel, r -> r.getIdadeEmMilissegundos() / 1000.0)
+                    .description("Segundos desde que o snapshot foi lido da Base de dados")
+                    .baseUnit("seconds")
+                    .register(registry);
+            Gauge.builder("pais.snapshot.tamanho", readModel,
+                    r -> r.getSnapshot() == null ? 0 : r.getSnapshot().getTamanho())
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Acertos, falhas, despejos, invalidacoes e tamanho do cache de consultas
+     **/
+    @Bean
+    public MeterBinder metricasDoConsultaCache(PaisConsultaCache cache) {
+        return registry -> {
+            for (String metrica : Arrays.asList("acertos", "falhas", "despejos", "invalidacoes")) {
+                FunctionCounter.builder("pais.cache." + metrica, cache, c -> c.getEstatisticas().get(metrica))
+                        .register(registry);
+            }
+            Gauge.builder("pais.cache.tamanho", cache, c -> c.getEstatisticas().get("tamanho"))
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Consultas executadas e partilhadas pelas leituras iguais ao mesmo tempo
+     **/
+    @Bean
+    public MeterBinder metricasDasConsultasEmAndamento(ConsultasEmAndamento consultas) {
+        return registry -> {
+            FunctionCounter.builder("pais.coalescencia.executadas", consultas, ConsultasEmAndamento::getExecutadas)
+                    .register(registry);
+            FunctionCounter.builder("pais.coalescencia.partilhadas", consultas, ConsultasEmAndamento::getPartilhadas)
+                    .description("Leituras que esperaram pela consulta de outra thread em vez de ir a Base de dados")
+                    .register(registry);
+            Gauge.builder("pais.coalescencia.em.andamento", consultas, ConsultasEmAndamento::getEmAndamento)
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Limite atual, pedidos em curso e rejeitados de cada classe de endpoints
+     **/
+    @Bean
+    public MeterBinder metricasDosLimitesDeConcorrencia(LimitesDeConcorrencia limites) {
+        return registry -> {
+            for (ClasseDeEndpoint classe : ClasseDeEndpoint.values()) {
+                LimitadorAimd limitador = limites.get(classe);
+                String tag = classe.name().toLowerCase();
+                Gauge.builder("pais.limite.atual", limitador, LimitadorAimd::getLimite)
+                        .tag("classe", tag)
+                        .register(registry);
+                Gauge.builder("pais.limite.em.uso", limitador, LimitadorAimd::getEmUso)
+                        .tag("classe", tag)
+                        .register(registry);
+                FunctionCounter.builder("pais.limite.rejeitados", limitador, LimitadorAimd::getRejeitados)
+                        .description("Pedidos rejeitados com 503 pelo limite de concorrencia")
+                        .tag("classe", tag)
+                        .register(registry);
+            }
+        };
+    }
+
+    /**
+     * Clientes ligados ao /changes e clientes desligados por ficarem para tras
+     **/
+    @Bean
+    public MeterBinder metricasDoFeedDeAlteracoes(FeedDeAlteracoes feed) {
+        return registry -> {
+            Gauge.builder("pais.changes.clientes", feed, FeedDeAlteracoes::getClientes)
+                    .register(registry);
+            FunctionCounter.builder("pais.changes.clientes.desligados", feed, FeedDeAlteracoes::getClientesDesligados)
+                    .description("Clientes desligados do /changes por terem a fila cheia")
+                    .register(registry);
+            Gauge.builder("pais.changes.sequencia", feed, FeedDeAlteracoes::getUltimaSequencia)
+                    .register(registry);
+        };
+    }
+
+    private static double valor(Map<String, Map<String, Number>> estatisticas, String atributo, String metrica) {
+        Map<String, Number> metricas = estatisticas.get(atributo);
+        return metricas == null ? Double.NaN : metricas.get(metrica).doubleValue();
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.gasparcossa.springbootapiproject.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gasparcossa.springbootapiproject.cache.PaisJsonCache;
+import com.gasparcossa.springbootapiproject.datasource.LeituraDasPropriasEscritasInterceptor;
+import com.gasparcossa.springbootapiproject.limiter.LimiteDeConcorrenciaInterceptor;
+import com.gasparcossa.springbootapiproject.metrics.ErrosObservadosResolver;
+import com.gasparcossa.springbootapiproject.metrics.MetricasPorPedidoInterceptor;
+import com.gasparcossa.springbootapiproject.web.PaisJsonHttpMessageConverter;
+import com.gasparcossa.springbootapiproject.web.PaisProtobufHttpMessageConverter;
+import java.util.List;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configuracoes do Spring MVC. Como o GlobalExceptionHandler usa @EnableWebMvc,
+ * as propriedades spring.mvc.* do Spring Boot nao sao aplicadas e as
+ * configuramos aqui
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PaisJsonCache paisJsonCache;
+
+    @Autowired
+    private LimiteDeConcorrenciaInterceptor limiteDeConcorrenciaInterceptor;
+
+    @Autowired
+    private MetricasPorPedidoInterceptor metricasPorPedidoInterceptor;
+
+    @Autowired
+    private ErrosObservadosResolver errosObservadosResolver;
+
+    // So existe com uma replica configurada
+    @Autowired
+    private ObjectProvider<LeituraDasPropriasEscritasInterceptor> leituraDasPropriasEscritasInterceptor;
+
+    @Value("${pais.export.timeout-ms:600000}")
+    private long timeoutExportacao;
+
+    @Value("${pais.export.threads:4}")
+    private int threadsExportacao;
+
+    @Value("${pais.export.fila:16}")
+    private int filaExportacao;
+
+    // Executor so das respostas assincronas. Nao e um bean para nao substituir o
+    // executor padrao do contexto, usado pelo @Async
+    private ThreadPoolTaskExecutor exportacaoExecutor;
+
+    /**
+     * Define o executor e o tempo maximo das respostas assincronas, como a do
+     * /export que escreve a tabela inteira. A fila do executor e limitada: com
+     * ela cheia a exportacao e rejeitada com 503 em vez de esperar sem fim por
+     * uma thread
+     **/
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        exportacaoExecutor = new ThreadPoolTaskExecutor();
+        exportacaoExecutor.setCorePoolSize(threadsExportacao);
+        exportacaoExecutor.setMaxPoolSize(threadsExportacao);
+        exportacaoExecutor.setQueueCapacity(filaExportacao);
+        exportacaoExecutor.setThreadNamePrefix("pais-export-");
+        exportacaoExecutor.initialize();
+        configurer.setTaskExecutor(exportacaoExecutor);
+        configurer.setDefaultTimeout(timeoutExportacao);
+    }
+
+    /**
+     * Desliga o executor das exportacoes junto com o contexto
+     **/
+    @PreDestroy
+    public void desligar() {
+        if (exportacaoExecutor != null) {
+            exportacaoExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Troca o conversor JSON padrao pelo que escreve as listas de paises a partir
+     * do JSON ja serializado de cada pais e junta o conversor protobuf. Os
+     * conversores Smile e CBOR ja sao registados pelo Spring MVC por estarem no
+     * classpath. O formato e escolhido pelo header Accept e o JSON continua
+     * sendo o padrao
+     **/
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i).getClass() == MappingJackson2HttpMessageConverter.class) {
+                converters.set(i, new PaisJsonHttpMessageConverter(objectMapper, paisJsonCache));
+            }
+        }
+        converters.add(new PaisProtobufHttpMessageConverter());
+    }
+
+    /**
+     * O limite de concorrencia vem primeiro, um pedido rejeitado nao chega a ser
+     * medido
+     **/
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(limiteDeConcorrenciaInterceptor);
+        registry.addInterceptor(metricasPorPedidoInterceptor);
+        leituraDasPropriasEscritasInterceptor.ifAvailable(registry::addInterceptor);
+    }
+
+    /**
+     * Poe o ErrosObservadosResolver antes dos outros, para ver todas as excessoes
+     * mesmo as que o GlobalExceptionHandler trata
+     **/
+    @Override
+    public void extendHandlerExceptionResolvers(List<HandlerExceptionResolver> resolvers) {
+        resolvers.add(0, errosObservadosResolver);
+    }
+
+}
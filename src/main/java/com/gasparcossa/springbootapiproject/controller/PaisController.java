@@ -1,20 +1,48 @@
 package com.gasparcossa.springbootapiproject.controller;
 
 import com.gasparcossa.springbootapiproject.service.PaisService;
+import com.gasparcossa.springbootapiproject.cache.PaisVersoes;
+import com.gasparcossa.springbootapiproject.dto.EstatisticaRegiao;
+import com.gasparcossa.springbootapiproject.dto.LoteResultado;
+import com.gasparcossa.springbootapiproject.dto.PaisPagina;
+import com.gasparcossa.springbootapiproject.dto.PaisPatch;
+import com.gasparcossa.springbootapiproject.dto.PaisResumo;
+import com.gasparcossa.springbootapiproject.dto.PaisesPorIds;
+import com.gasparcossa.springbootapiproject.dto.Sugestao;
+import com.gasparcossa.springbootapiproject.event.FeedDeAlteracoes;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gasparcossa.springbootapiproject.model.Pais;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.gasparcossa.springbootapiproject.exception.ParametroInvalidoException;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.Pattern;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import org.springframework.web.bind.annotation.PutMapping;
 
@@ -29,9 +57,31 @@ import org.springframework.web.bind.annotation.PutMapping;
 @Validated
 public class PaisController {
 
+    // Maior pagina aceite pelo /readAll, para limitar a memoria usada por requisicao
+    static final int LIMITE_MAXIMO_PAGINA = 1000;
+
+    // Maior quantidade de ids aceite num unico /readByIds
+    static final int LIMITE_MAXIMO_IDS = 10000;
+
+    // Maior quantidade de sugestoes devolvidas pelo /autocomplete
+    static final int LIMITE_MAXIMO_SUGESTOES = 100;
+
     @Autowired
     private PaisService paisService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PaisVersoes paisVersoes;
+
+    @Autowired
+    private FeedDeAlteracoes feedDeAlteracoes;
+
+    // Maior quantidade de paises aceite num unico /saveBatch
+    @Value("${pais.lote.tamanho-maximo:10000}")
+    private int tamanhoMaximoDoLote;
+
     public PaisController() {
     }
 
@@ -71,26 +121,153 @@ public class PaisController {
     }
 
     /**
-     * Endpoint para ler todos paises que estao na Base de dados
+     * Endpoint para salvar um lote de paises enviado como um array JSON
      * 
-     * @param null
-     * @return Lista dos paises requeridos
+     * @param paises Lista de instancias da classe Pais
+     * @return ResponseEntity com os ids inseridos e os erros de cada pais
+     **/
+    @PostMapping(value = "/saveBatch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    ResponseEntity<LoteResultado> createBatch(@RequestBody List<Pais> paises) {
+        if (paises.size() > tamanhoMaximoDoLote) {
+            throw new ParametroInvalidoException("tamanho do lote", paises.size());
+        }
+        return new ResponseEntity<LoteResultado>(paisService.savePaisesEmLote(paises), HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint para salvar um lote de paises enviado como NDJSON, um pais por
+     * linha
+     * 
+     * @param corpo Corpo da requisicao
+     * @return ResponseEntity com os ids inseridos e os erros de cada pais
+     **/
+    @PostMapping(value = "/saveBatch", consumes = "application/x-ndjson")
+    ResponseEntity<LoteResultado> createBatchNdjson(InputStream corpo) throws IOException {
+        List<Pais> paises = new ArrayList<Pais>();
+        try (MappingIterator<Pais> linhas = objectMapper.readerFor(Pais.class).readValues(corpo)) {
+            while (linhas.hasNextValue()) {
+                if (paises.size() == tamanhoMaximoDoLote) {
+                    throw new ParametroInvalidoException("tamanho do lote", "mais de " + tamanhoMaximoDoLote);
+                }
+                paises.add(linhas.nextValue());
+            }
+        } catch (JsonProcessingException ex) {
+            throw new ParametroInvalidoException("linha " + (paises.size() + 1), ex.getOriginalMessage());
+        }
+        return new ResponseEntity<LoteResultado>(paisService.savePaisesEmLote(paises), HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint para ler os paises que estao na Base de dados, pagina a pagina,
+     * ordenados pelo id
+     * 
+     * @param after  Cursor devolvido pela pagina anterior, 0 para a primeira
+     * @param limit  Quantidade maxima de paises na pagina
+     * @param fields Atributos a devolver (ex: nome,capital), todos se omitido. O id
+     *               sai sempre
+     * @return A pagina dos paises requeridos e o cursor da proxima pagina, ou 304
+     *         se a tabela nao mudou desde a ETag informada
      **/
     @GetMapping("/readAll")
-    public List<Pais> getAllPaises() {
-        return paisService.getAllPaises();
+    public ResponseEntity<PaisPagina> getAllPaises(
+            @RequestParam(value = "after", defaultValue = "0") @Min(value = 0, message = "O cursor nao pode ser negativo") long after,
+            @RequestParam(value = "limit", defaultValue = "100") @Min(value = 1, message = "O limite deve ser pelo menos 1") @Max(value = LIMITE_MAXIMO_PAGINA, message = "O limite nao pode passar de 1000") int limit,
+            @RequestParam(value = "fields", required = false) List<String> fields, WebRequest request,
+            HttpServletResponse response) {
+        variarPeloAccept(response);
+        // A ETag e lida antes da consulta, assim uma escrita no meio so causa uma leitura a mais
+        String etag = paisVersoes.getEtagDaTabela();
+        long ultimaAlteracao = paisVersoes.getUltimaAlteracao();
+        if (request.checkNotModified(etag, ultimaAlteracao)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).lastModified(ultimaAlteracao)
+                .body(paisService.getPaginaDePaises(after, limit, fields));
+    }
+
+    /**
+     * Endpoint para exportar todos paises da Base de dados. Os paises sao
+     * escritos na resposta a medida que sao lidos, sem montar a lista em memoria
+     * 
+     * @param formato ndjson (um objecto JSON por linha) ou csv
+     * @return ResponseEntity com o corpo escrito aos poucos
+     **/
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportarPaises(
+            @RequestParam(value = "formato", defaultValue = "ndjson") String formato) {
+        if ("ndjson".equalsIgnoreCase(formato)) {
+            StreamingResponseBody corpo = saida -> paisService.exportarPaisesNdjson(saida);
+            return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(corpo);
+        }
+        if ("csv".equalsIgnoreCase(formato)) {
+            StreamingResponseBody corpo = saida -> paisService.exportarPaisesCsv(saida);
+            return ResponseEntity.ok().contentType(MediaType.parseMediaType("text/csv;charset=UTF-8")).body(corpo);
+        }
+        throw new ParametroInvalidoException("formato", formato);
     }
 
     /**
      * Endpoint para ler um pais pelo id informado
      * 
      * @param id Atributo da classe Pais
-     * @return ResponseEntity da entidade pais, com o pais requerido e o seu status
+     * @return ResponseEntity da entidade pais, com o pais requerido e o seu status,
+     *         ou 304 se a versao do pais e a da ETag informada
      **/
     @GetMapping("/readById/{id}")
     public ResponseEntity<Pais> getPaisById(
-            @PathVariable("id") long id) {
-        return new ResponseEntity<Pais>(paisService.getPaisById(id), HttpStatus.OK);
+            @PathVariable("id") long id, WebRequest request, HttpServletResponse response) {
+        variarPeloAccept(response);
+        String etagConhecida = paisVersoes.getEtagConhecida(id);
+        long ultimaAlteracao = paisVersoes.getUltimaAlteracao();
+        if (etagConhecida != null && request.checkNotModified(etagConhecida, ultimaAlteracao)) {
+            return null;
+        }
+        Pais pais = paisService.getPaisById(id);
+        if (pais.getVersao() == null) {
+            return new ResponseEntity<Pais>(pais, HttpStatus.OK);
+        }
+        paisVersoes.registrar(id, pais.getVersao());
+        return ResponseEntity.ok().eTag(PaisVersoes.getEtagDoPais(id, pais.getVersao()))
+                .lastModified(ultimaAlteracao).body(pais);
+    }
+
+    /**
+     * Endpoint para ler varios paises pelos ids informados numa unica requisicao
+     * 
+     * @param ids Ids dos paises separados por virgula (ex: ids=1,2,3)
+     * @return Os paises na ordem dos ids e os ids nao encontrados
+     **/
+    @GetMapping("/readByIds")
+    public ResponseEntity<PaisesPorIds> getPaisesByIds(@RequestParam("ids") List<Long> ids) {
+        return new ResponseEntity<PaisesPorIds>(paisService.getPaisesByIds(validarIds(ids)), HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint para ler varios paises pelos ids enviados como um array JSON, para
+     * listas grandes demais para a URL
+     * 
+     * @param ids Ids dos paises
+     * @return Os paises na ordem dos ids e os ids nao encontrados
+     **/
+    @PostMapping(value = "/readByIds", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<PaisesPorIds> getPaisesByIdsDoCorpo(@RequestBody List<Long> ids) {
+        return new ResponseEntity<PaisesPorIds>(paisService.getPaisesByIds(validarIds(ids)), HttpStatus.OK);
+    }
+
+    // A mesma ETag vale para todos os formatos, entao os caches tem de separar as
+    // respostas pelo Accept. Vai tambem nas respostas 304
+    private static void variarPeloAccept(HttpServletResponse response) {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    }
+
+    private static List<Long> validarIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > LIMITE_MAXIMO_IDS) {
+            throw new ParametroInvalidoException("quantidade de ids", ids == null ? 0 : ids.size());
+        }
+        if (ids.contains(null)) {
+            throw new ParametroInvalidoException("ids", "id vazio");
+        }
+        return ids;
     }
 
     /**
@@ -100,9 +277,9 @@ public class PaisController {
      * @return A lista dos paises requeridos e o seu status
      **/
     @GetMapping("/readByNome/{nome}")
-    public ResponseEntity<?> getAllPaisesByNome(
+    public ResponseEntity<List<Pais>> getAllPaisesByNome(
             @PathVariable("nome") @Pattern(regexp = "^[a-zA-Z_\\s]*$", message = "O nome do pais deve conter somente letras") String nome) {
-        return new ResponseEntity<>(paisService.getAllPaisesByNome(nome), HttpStatus.OK);
+        return new ResponseEntity<List<Pais>>(paisService.getAllPaisesByNome(nome), HttpStatus.OK);
     }
 
     /**
@@ -112,21 +289,30 @@ public class PaisController {
      * @return A lista dos paises requeridos e o seu status
      **/
     @GetMapping("/readByCapital/{capital}")
-    public ResponseEntity<?> getAllPaisesByCapital(
+    public ResponseEntity<List<Pais>> getAllPaisesByCapital(
             @PathVariable("capital") @Pattern(regexp = "^[a-zA-Z_\\s]*$", message = "A capital do pais deve conter somente letras") String capital) {
-        return new ResponseEntity<>(paisService.getAllPaisesByCapital(capital), HttpStatus.OK);
+        return new ResponseEntity<List<Pais>>(paisService.getAllPaisesByCapital(capital), HttpStatus.OK);
     }
 
     /**
      * Endpoint para ler todos paises pela regiao informada
      * 
      * @param regiao Atributo da classe Pais
-     * @return A lista dos paises requeridos e o seu status
+     * @return A lista dos paises requeridos e o seu status, ou 304 se a tabela
+     *         nao mudou desde a ETag informada
      **/
     @GetMapping("/readByRegiao/{regiao}")
-    public ResponseEntity<?> getAllPaisesByRegiao(
-            @PathVariable("regiao") @Pattern(regexp = "^[a-zA-Z_\\s]*$", message = "A regiao do pais deve conter somente letras") String regiao) {
-        return new ResponseEntity<>(paisService.getAllPaisesByRegiao(regiao), HttpStatus.OK);
+    public ResponseEntity<List<Pais>> getAllPaisesByRegiao(
+            @PathVariable("regiao") @Pattern(regexp = "^[a-zA-Z_\\s]*$", message = "A regiao do pais deve conter somente letras") String regiao,
+            WebRequest request, HttpServletResponse response) {
+        variarPeloAccept(response);
+        String etag = paisVersoes.getEtagDaTabela();
+        long ultimaAlteracao = paisVersoes.getUltimaAlteracao();
+        if (request.checkNotModified(etag, ultimaAlteracao)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).lastModified(ultimaAlteracao)
+                .body(paisService.getAllPaisesByRegiao(regiao));
     }
 
     /**
@@ -136,9 +322,9 @@ public class PaisController {
      * @return A lista dos paises requeridos e o seu status
      **/
     @GetMapping("/readBySubRegiao/{subRegiao}")
-    public ResponseEntity<?> getAllPaisesBySubRegiao(
+    public ResponseEntity<List<Pais>> getAllPaisesBySubRegiao(
             @PathVariable("subRegiao") @Pattern(regexp = "^[a-zA-Z_\\s]*$", message = "A sub-regiao do pais deve conter somente letras") String subRegiao) {
-        return new ResponseEntity<>(paisService.getAllPaisesBySubRegiao(subRegiao), HttpStatus.OK);
+        return new ResponseEntity<List<Pais>>(paisService.getAllPaisesBySubRegiao(subRegiao), HttpStatus.OK);
     }
 
     /**
@@ -148,9 +334,138 @@ public class PaisController {
      * @return A lista dos paises requeridos e o seu status
      **/
     @GetMapping("/readByArea/{area}")
-    public ResponseEntity<?> getAllPaisesByArea(
+    public ResponseEntity<List<Pais>> getAllPaisesByArea(
             @PathVariable("area") double area) {
-        return new ResponseEntity<>(paisService.getAllPaisesByArea(area), HttpStatus.OK);
+        return new ResponseEntity<List<Pais>>(paisService.getAllPaisesByArea(area), HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint para ler os paises com area entre min e max, ordenados pela area
+     * 
+     * @param min   Menor area, inclusive
+     * @param max   Maior area, inclusive
+     * @param limit Quantidade maxima de paises
+     * @return A lista dos paises do intervalo e o seu status
+     **/
+    @GetMapping("/readByArea")
+    public ResponseEntity<List<Pais>> getPaisesEntreAreas(
+            @RequestParam(value = "min", defaultValue = "0") double min,
+            @RequestParam(value = "max", defaultValue = "1.7976931348623157E308") double max,
+            @RequestParam(value = "limit", defaultValue = "100") @Min(value = 1, message = "O limite deve ser pelo menos 1") @Max(value = LIMITE_MAXIMO_PAGINA, message = "O limite nao pode passar de 1000") int limit) {
+        return new ResponseEntity<List<Pais>>(paisService.getPaisesEntreAreas(min, max, limit), HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint para ler os k paises de maior area
+     * 
+     * @param k Quantidade de paises
+     * @return A lista dos maiores paises e o seu status
+     **/
+    @GetMapping("/largest")
+    public ResponseEntity<List<Pais>> getMaioresPaises(
+            @RequestParam(value = "k", defaultValue = "10") @Min(value = 1, message = "O k deve ser pelo menos 1") @Max(value = LIMITE_MAXIMO_PAGINA, message = "O k nao pode passar de 1000") int k) {
+        return new ResponseEntity<List<Pais>>(paisService.getMaioresPaises(k), HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint para ler os k paises de menor area
+     * 
+     * @param k Quantidade de paises
+     * @return A lista dos menores paises e o seu status
+     **/
+    @GetMapping("/smallest")
+    public ResponseEntity<List<Pais>> getMenoresPaises(
+            @RequestParam(value = "k", defaultValue = "10") @Min(value = 1, message = "O k deve ser pelo menos 1") @Max(value = LIMITE_MAXIMO_PAGINA, message = "O k nao pode passar de 1000") int k) {
+        return new ResponseEntity<List<Pais>>(paisService.getMenoresPaises(k), HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint que envia por Server-Sent Events cada pais criado, atualizado ou
+     * removido depois do commit. Um cliente que volta com o Last-Event-ID recebe
+     * o que perdeu, ou um evento reset se perdeu demais e deve reler tudo pelo
+     * /readAll
+     * 
+     * @param ultimoEventoId Id do ultimo evento recebido pelo cliente
+     * @return O emitter com as alteracoes
+     **/
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter acompanharAlteracoes(
+            @RequestHeader(value = "Last-Event-ID", required = false) String ultimoEventoId) {
+        return feedDeAlteracoes.inscrever(ultimoEventoId);
+    }
+
+    /**
+     * Endpoint para sugerir nomes ou capitais pelo inicio do texto, sem
+     * diferenciar acentos nem maiusculas. Pensado para ser chamado a cada tecla
+     * 
+     * @param field  nome ou capital
+     * @param prefix Inicio do valor
+     * @param limit  Quantidade maxima de sugestoes
+     * @return As sugestoes em ordem alfabetica, com o id de cada pais
+     **/
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<Sugestao>> autocompletar(
+            @RequestParam(value = "field", defaultValue = "nome") String field,
+            @RequestParam("prefix") String prefix,
+            @RequestParam(value = "limit", defaultValue = "10") @Min(value = 1, message = "O limite deve ser pelo menos 1") @Max(value = LIMITE_MAXIMO_SUGESTOES, message = "O limite nao pode passar de 100") int limit) {
+        return new ResponseEntity<List<Sugestao>>(paisService.autocompletar(field, prefix, limit), HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint com a quantidade de paises e a area total e media de cada regiao
+     * 
+     * @return As estatisticas em ordem alfabetica da regiao
+     **/
+    @GetMapping("/stats/regiao")
+    public ResponseEntity<List<EstatisticaRegiao>> getEstatisticasPorRegiao() {
+        return new ResponseEntity<List<EstatisticaRegiao>>(paisService.getEstatisticasPorRegiao(), HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint com a quantidade de paises e a area total e media de cada
+     * sub-regiao
+     * 
+     * @return As estatisticas em ordem alfabetica da sub-regiao
+     **/
+    @GetMapping("/stats/subRegiao")
+    public ResponseEntity<List<EstatisticaRegiao>> getEstatisticasPorSubRegiao() {
+        return new ResponseEntity<List<EstatisticaRegiao>>(paisService.getEstatisticasPorSubRegiao(),
+                HttpStatus.OK);
+    }
+
+    /**
+     * Endpoint para pesquisar paises combinando filtros opcionais numa unica
+     * consulta
+     * 
+     * @param regiao         Regiao exata
+     * @param subRegiao      Sub-regiao exata
+     * @param nome           Inicio do nome
+     * @param capital        Inicio da capital
+     * @param areaMin        Menor area, inclusive
+     * @param areaMax        Maior area, inclusive
+     * @param page           Numero da pagina, a comecar em 0
+     * @param size           Quantidade de paises por pagina
+     * @param sort           Atributos para ordenar, com - a frente para ordem
+     *                       decrescente (ex: regiao,-area)
+     * @return A pagina com os resumos dos paises encontrados
+     **/
+    @GetMapping("/search")
+    public ResponseEntity<Page<PaisResumo>> pesquisarPaises(
+            @RequestParam(value = "regiao", required = false) String regiao,
+            @RequestParam(value = "subRegiao", required = false) String subRegiao,
+            @RequestParam(value = "nome", required = false) String nome,
+            @RequestParam(value = "capital", required = false) String capital,
+            @RequestParam(value = "areaMin", required = false) Double areaMin,
+            @RequestParam(value = "areaMax", required = false) Double areaMax,
+            @RequestParam(value = "page", defaultValue = "0") @Min(value = 0, message = "A pagina nao pode ser negativa") int page,
+            @RequestParam(value = "size", defaultValue = "20") @Min(value = 1, message = "O tamanho deve ser pelo menos 1") @Max(value = LIMITE_MAXIMO_PAGINA, message = "O tamanho nao pode passar de 1000") int size,
+            @RequestParam(value = "sort", required = false) List<String> sort) {
+        // O deslocamento da pagina tem que caber num int para a consulta
+        if ((long) page * size > Integer.MAX_VALUE) {
+            throw new ParametroInvalidoException("page", page);
+        }
+        return new ResponseEntity<Page<PaisResumo>>(paisService.pesquisarPaises(regiao, subRegiao, nome, capital,
+                areaMin, areaMax, page, size, sort), HttpStatus.OK);
     }
 
     /**
@@ -163,7 +478,7 @@ public class PaisController {
     @PutMapping("/update/{id}")
     public ResponseEntity<Object> updatePais(@PathVariable("id") long id, @Valid @RequestBody Pais pais) {
 
-        if (paisService.sameCapitalInPaises(pais)) {
+        if (paisService.sameCapitalInPaises(pais, id)) {
             List<String> Erro = new ArrayList<String>();
             Erro.add("Nao pode atualizar o pais com essa capital pois ja foi cadastrado.");
             return new ResponseEntity<Object>(Erro, HttpStatus.OK);
@@ -172,6 +487,31 @@ public class PaisController {
         return new ResponseEntity<Object>(paisService.updatePais(pais, id), HttpStatus.OK);
     }
 
+    /**
+     * Endpoint que atualiza somente os atributos informados de um pais. Se o
+     * corpo tiver a versao, o pais so e atualizado se ainda estiver nela
+     * 
+     * @param id    Atributo da classe Pais
+     * @param patch Atributos a alterar
+     * @return ResponseEntity da entidade pais, com o pais atualizado e o seu status
+     **/
+    @PatchMapping("/update/{id}")
+    public ResponseEntity<Object> updatePaisParcialmente(@PathVariable("id") long id,
+            @Valid @RequestBody PaisPatch patch) {
+
+        if (patch.getCapital() != null) {
+            Pais pais = new Pais();
+            pais.setCapital(patch.getCapital());
+            if (paisService.sameCapitalInPaises(pais, id)) {
+                List<String> Erro = new ArrayList<String>();
+                Erro.add("Nao pode atualizar o pais com essa capital pois ja foi cadastrado.");
+                return new ResponseEntity<Object>(Erro, HttpStatus.OK);
+            }
+        }
+
+        return new ResponseEntity<Object>(paisService.updatePaisParcialmente(patch, id), HttpStatus.OK);
+    }
+
     /**
      * Endpoint para deletar um pais pelo id informado
      * 
@@ -0,0 +1,50 @@
+package com.gasparcossa.springbootapiproject.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Marca a thread atual para ler da primaria mesmo em transacoes somente de
+ * leitura, para o cliente ver as suas proprias escritas enquanto a replica
+ * ainda nao as tem
+ */
+public final class ContextoDeRoteamento {
+
+    private static final ThreadLocal<Boolean> PRIMARIA_FORCADA = new ThreadLocal<Boolean>();
+
+    private ContextoDeRoteamento() {
+    }
+
+    public static void forcarPrimaria() {
+        PRIMARIA_FORCADA.set(Boolean.TRUE);
+    }
+
+    public static boolean isPrimariaForcada() {
+        return PRIMARIA_FORCADA.get() != null;
+    }
+
+    public static void limpar() {
+        PRIMARIA_FORCADA.remove();
+    }
+
+    /**
+     * Executa a leitura na primaria e repoe o estado anterior da thread. Usado
+     * pelas reconstrucoes dos indices em memoria, que sao depois atualizados
+     * pelas escritas confirmadas e nao devem voltar atras com uma replica
+     * atrasada
+     * 
+     * @param leitura Leitura a executar
+     * @return O resultado da leitura
+     **/
+    public static <T> T naPrimaria(Supplier<T> leitura) {
+        boolean forcada = isPrimariaForcada();
+        forcarPrimaria();
+        try {
+            return leitura.get();
+        } finally {
+            if (!forcada) {
+                limpar();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.gasparcossa.springbootapiproject.datasource;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Durante a janela pais.datasource.leitura-propria-ms depois de uma escrita
+ * bem sucedida, as leituras do mesmo cliente vao para a primaria. O cliente e
+ * identificado pelo header X-Client-Id ou, sem ele, pelo endereco de origem
+ */
+@Component
+@ConditionalOnProperty(name = "pais.datasource.replica.url")
+public class LeituraDasPropriasEscritasInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String CLIENTE = "X-Client-Id";
+
+    // Leituras que tambem aceitam POST, como no LimiteDeConcorrenciaInterceptor
+    private static final Set<String> LEITURAS_POR_POST = new HashSet<String>(Arrays.asList("/readByIds"));
+
+    @Value("${pais.datasource.leitura-propria-ms:5000}")
+    private long janelaMs;
+
+    // Ate quando cada cliente le da primaria, em milissegundos desde 1970
+    private final Map<String, Long> primariaAte = new ConcurrentHashMap<String, Long>();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Long ate = janelaMs > 0 ? primariaAte.get(cliente(request)) : null;
+        if (!isLeitura(request) || (ate != null && ate > System.currentTimeMillis())) {
+            ContextoDeRoteamento.forcarPrimaria();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        ContextoDeRoteamento.limpar();
+        if (janelaMs > 0 && !isLeitura(request) && ex == null && response.getStatus() < 400) {
+            primariaAte.put(cliente(request), System.currentTimeMillis() + janelaMs);
+        }
+    }
+
+    // O resto do pedido assincrono corre noutra thread, esta nao pode ficar marcada
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        ContextoDeRoteamento.limpar();
+    }
+
+    /**
+     * Remove os clientes cuja janela ja passou
+     **/
+    @Scheduled(fixedDelayString = "${pais.datasource.leitura-propria-ms:5000}")
+    public void expirar() {
+        long agora = System.currentTimeMillis();
+        for (Iterator<Long> iterator = primariaAte.values().iterator(); iterator.hasNext();) {
+            if (iterator.next() <= agora) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static boolean isLeitura(HttpServletRequest request) {
+        Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (padrao != null && LEITURAS_POR_POST.contains(padrao.toString())) {
+            return true;
+        }
+        return request.getMethod().equals("GET") || request.getMethod().equals("HEAD");
+    }
+
+    private static String cliente(HttpServletRequest request) {
+        String cliente = request.getHeader(CLIENTE);
+        return cliente != null && !cliente.isEmpty() ? cliente : request.getRemoteAddr();
+    }
+
+}
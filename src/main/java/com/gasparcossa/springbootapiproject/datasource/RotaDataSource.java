@@ -0,0 +1,8 @@
+package com.gasparcossa.springbootapiproject.datasource;
+
+/**
+ * Base de dados para onde uma conexao e encaminhada
+ */
+public enum RotaDataSource {
+    PRIMARIA, REPLICA
+}
@@ -0,0 +1,30 @@
+package com.gasparcossa.springbootapiproject.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Encaminha as conexoes das transacoes @Transactional(readOnly = true) para a
+ * replica e todas as outras para a primaria. Deve ficar dentro de um
+ * LazyConnectionDataSourceProxy: so assim a conexao e pedida depois de a
+ * transacao ser marcada como somente de leitura
+ */
+public class RoteamentoDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return rotaAtual();
+    }
+
+    /**
+     * @return Para onde vao as consultas da transacao atual, se houver replica
+     **/
+    public static RotaDataSource rotaAtual() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !ContextoDeRoteamento.isPrimariaForcada()) {
+            return RotaDataSource.REPLICA;
+        }
+        return RotaDataSource.PRIMARIA;
+    }
+
+}
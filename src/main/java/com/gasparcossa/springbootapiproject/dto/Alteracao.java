@@ -0,0 +1,30 @@
+package com.gasparcossa.springbootapiproject.dto;
+
+import com.gasparcossa.springbootapiproject.model.Pais;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento enviado pelo /changes a cada pais criado, atualizado ou removido
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Alteracao {
+
+    // Posicao do evento no feed desta instancia, crescente
+    private long sequencia;
+
+    // CRIADO, ATUALIZADO, REMOVIDO ou REINICIO quando o cliente deve reler tudo
+    private String tipo;
+
+    private long paisId;
+
+    // Estado do pais depois da alteracao, nullo quando foi removido
+    private Pais pais;
+
+    // Milissegundos desde 1970 em que a alteracao foi confirmada
+    private long instante;
+
+}
@@ -0,0 +1,24 @@
+package com.gasparcossa.springbootapiproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Linha do /stats/regiao e do /stats/subRegiao: quantos paises tem a regiao (ou
+ * sub-regiao) e a soma e a media das suas areas
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstatisticaRegiao {
+
+    private String nome;
+
+    private long paises;
+
+    private double areaTotal;
+
+    private double areaMedia;
+
+}
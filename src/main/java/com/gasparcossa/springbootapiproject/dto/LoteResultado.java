@@ -0,0 +1,40 @@
+package com.gasparcossa.springbootapiproject.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado do /saveBatch, com os ids inseridos e os erros de cada pais
+ * rejeitado
+ */
+@Data
+@NoArgsConstructor
+public class LoteResultado {
+
+    private int recebidos;
+
+    private int inseridos;
+
+    // Ids dos paises inseridos, na ordem em que vieram no lote
+    private List<Long> ids = new ArrayList<Long>();
+
+    private List<ErroDeItem> erros = new ArrayList<ErroDeItem>();
+
+    /**
+     * Erros de um pais do lote, identificado pela sua posicao no lote
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ErroDeItem {
+
+        private int indice;
+
+        private List<String> mensagens;
+
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.gasparcossa.springbootapiproject.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pagina de paises devolvida pela paginacao por cursor (keyset) do /readAll
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaisPagina {
+
+    // Paises completos ou somente os campos requeridos, sempre ordenados pelo id
+    private List<?> conteudo;
+
+    // Id a ser informado em ?after= para ler a proxima pagina, nullo na ultima
+    private Long proximoCursor;
+
+}
@@ -0,0 +1,33 @@
+package com.gasparcossa.springbootapiproject.dto;
+
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Pattern;
+import lombok.Data;
+
+/**
+ * Corpo do PATCH /update/{id}. Somente os atributos informados sao alterados,
+ * os nullos ficam como estao na Base de dados
+ */
+@Data
+public class PaisPatch {
+
+    @Pattern(regexp = "^\\s*[a-zA-Z_][a-zA-Z_\\s]*$", message = "O nome do pais deve conter somente letras")
+    private String nome;
+
+    @Pattern(regexp = "^\\s*[a-zA-Z_][a-zA-Z_\\s]*$", message = "A capital do pais deve conter somente letras")
+    private String capital;
+
+    @Pattern(regexp = "^\\s*[a-zA-Z_][a-zA-Z_\\s]*$", message = "A regiao do pais deve conter somente letras")
+    private String regiao;
+
+    @Pattern(regexp = "^\\s*[a-zA-Z_][a-zA-Z_\\s]*$", message = "A sub-regiao do pais deve conter somente letras")
+    private String subRegiao;
+
+    @DecimalMin(value = "0.4", inclusive = true, message = "O menor pais tem 0.49 de area")
+    private Double area;
+
+    // Versao lida pelo cliente. Se informada, o PATCH so e aplicado se o pais
+    // ainda estiver nessa versao
+    private Long versao;
+
+}
@@ -0,0 +1,28 @@
+package com.gasparcossa.springbootapiproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Projecao de Pais devolvida pelo /search. E montada direto das colunas pela
+ * consulta, sem passar por uma entidade gerida
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaisResumo {
+
+    private long id;
+
+    private String nome;
+
+    private String capital;
+
+    private String regiao;
+
+    private String subRegiao;
+
+    private double area;
+
+}
@@ -0,0 +1,23 @@
+package com.gasparcossa.springbootapiproject.dto;
+
+import com.gasparcossa.springbootapiproject.model.Pais;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado do /readByIds: os paises encontrados na ordem dos ids pedidos e os
+ * ids que nao existem
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaisesPorIds {
+
+    private List<Pais> paises;
+
+    // Na ordem em que foram pedidos, sem repeticoes
+    private List<Long> naoEncontrados;
+
+}
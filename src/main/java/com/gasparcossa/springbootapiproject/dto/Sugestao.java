@@ -0,0 +1,19 @@
+package com.gasparcossa.springbootapiproject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sugestao do /autocomplete: o valor do campo pedido e o id do seu pais
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Sugestao {
+
+    private long id;
+
+    private String valor;
+
+}
@@ -0,0 +1,361 @@
+package com.gasparcossa.springbootapiproject.event;
+
+import com.gasparcossa.springbootapiproject.dto.Alteracao;
+import com.gasparcossa.springbootapiproject.exception.SobrecargaException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Feed das alteracoes de paises enviado por Server-Sent Events no /changes.
+ *
+ * As alteracoes confirmadas entram num buffer circular com as ultimas
+ * pais.changes.capacidade alteracoes, usado para reenviar o que um cliente
+ * perdeu quando volta com o Last-Event-ID. Cada cliente tem uma fila limitada
+ * esvaziada por um executor proprio: quem escreve so poe o evento nas filas e
+ * nunca espera por um cliente. Um cliente com a fila cheia e desligado e, ao
+ * voltar, recebe o que perdeu do buffer ou um REINICIO. Um lote maior que a
+ * fila de um cliente nunca caberia nela, entao o cliente recebe um REINICIO no
+ * lugar do lote em vez de ser desligado.
+ *
+ * Um envio que fica parado mais de pais.changes.timeout-envio-ms desliga o
+ * cliente, e o executor ganha uma thread no lugar da que ficou presa ate o
+ * envio acabar, para os outros clientes nao ficarem sem threads
+ */
+@Component
+public class FeedDeAlteracoes {
+
+    private static final String REINICIO = "REINICIO";
+
+    // Marca na fila de um cliente para enviar so um comentario e manter a
+    // conexao viva
+    private static final Alteracao PULSACAO = new Alteracao();
+
+    @Value("${pais.changes.capacidade:10000}")
+    private int capacidade;
+
+    @Value("${pais.changes.fila-por-cliente:1000}")
+    private int filaPorCliente;
+
+    @Value("${pais.changes.maximo-clientes:1000}")
+    private int maximoClientes;
+
+    @Value("${pais.changes.timeout-ms:1800000}")
+    private long timeout;
+
+    @Value("${pais.changes.threads:8}")
+    private int threads;
+
+    @Value("${pais.changes.timeout-envio-ms:10000}")
+    private long timeoutEnvio;
+
+    // Distingue os ids desta execucao da API dos de uma execucao anterior
+    private final String epoca = Long.toString(System.currentTimeMillis(), 36);
+
+    // Protegidos pelo lock desta instancia
+    private Alteracao[] buffer;
+    private long ultimaSequencia;
+
+    private final Set<Cliente> clientes = ConcurrentHashMap.newKeySet();
+    private final AtomicLong clientesDesligados = new AtomicLong();
+
+    private ThreadPoolTaskExecutor executor;
+
+    // Threads presas em envios de clientes ja desligados. Protegido pelo lock do
+    // executor
+    private int threadsPresas;
+
+    @PostConstruct
+    public void iniciar() {
+        buffer = new Alteracao[capacidade];
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("pais-changes-");
+        executor.setDaemon(true);
+        executor.initialize();
+    }
+
+    @PreDestroy
+    public void parar() {
+        for (Cliente cliente : clientes) {
+            cliente.remover();
+            cliente.emitter.complete();
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Inscreve um cliente no feed
+     * 
+     * @param ultimoEventoId Valor do header Last-Event-ID, nullo numa conexao
+     *                       nova
+     * @return O emitter que envia as alteracoes ao cliente
+     **/
+    public SseEmitter inscrever(String ultimoEventoId) {
+        if (clientes.size() >= maximoClientes) {
+            throw new SobrecargaException("alteracoes", 5);
+        }
+        SseEmitter emitter = criarEmitter();
+        Cliente cliente;
+        // Com o lock, nenhuma alteracao entra entre o reenvio e a inscricao
+        synchronized (this) {
+            List<Alteracao> reenvio = new ArrayList<Alteracao>();
+            if (ultimoEventoId != null) {
+                long ultimo = sequenciaDe(ultimoEventoId);
+                if (ultimo < 0 || ultimo > ultimaSequencia || ultimo < ultimaSequencia - capacidade) {
+                    // O cliente perdeu mais do que o buffer guarda, ou o id e de outra execucao
+                    reenvio.add(new Alteracao(ultimaSequencia, REINICIO, 0, null, System.currentTimeMillis()));
+                } else {
+                    for (long sequencia = ultimo + 1; sequencia <= ultimaSequencia; sequencia++) {
+                        reenvio.add(buffer[(int) (sequencia % capacidade)]);
+                    }
+                }
+            }
+            cliente = new Cliente(emitter, reenvio.size() + filaPorCliente);
+            cliente.fila.addAll(reenvio);
+            clientes.add(cliente);
+        }
+        emitter.onCompletion(cliente::remover);
+        emitter.onTimeout(cliente::remover);
+        emitter.onError(ex -> cliente.remover());
+        cliente.agendar();
+        return emitter;
+    }
+
+    /**
+     * Guarda as alteracoes confirmadas no buffer e as poe na fila de cada
+     * cliente
+     * 
+     * @param eventos Alteracoes confirmadas, publicadas pelo PaisService
+     **/
+    @TransactionalEventListener(fallbackExecution = true)
+    public void publicar(PaisesAlteradosEvent eventos) {
+        synchronized (this) {
+            long instante = System.currentTimeMillis();
+            List<Alteracao> lote = new ArrayList<Alteracao>(eventos.getAlteracoes().size());
+            for (PaisAlteradoEvent evento : eventos.getAlteracoes()) {
+                ultimaSequencia++;
+                Alteracao alteracao = new Alteracao(ultimaSequencia, evento.getTipo().name(), evento.getId(),
+                        evento.getPais(), instante);
+                buffer[(int) (ultimaSequencia % capacidade)] = alteracao;
+                lote.add(alteracao);
+            }
+            if (lote.isEmpty()) {
+                return;
+            }
+            // O lote entra inteiro na fila ou, se nunca caberia nela, e trocado
+            // por um REINICIO com o id da ultima alteracao do lote
+            Alteracao reinicio = lote.size() > filaPorCliente
+                    ? new Alteracao(ultimaSequencia, REINICIO, 0, null, instante)
+                    : null;
+            for (Cliente cliente : clientes) {
+                if (reinicio != null) {
+                    cliente.reiniciar(reinicio);
+                } else {
+                    cliente.enviar(lote);
+                }
+            }
+        }
+    }
+
+    /**
+     * Envia um comentario aos clientes parados, para os proxies nao fecharem a
+     * conexao e para descobrir os clientes que ja foram embora
+     **/
+    @Scheduled(fixedDelayString = "${pais.changes.pulsacao-ms:15000}", initialDelayString = "${pais.changes.pulsacao-ms:15000}")
+    public void pulsar() {
+        for (Cliente cliente : clientes) {
+            if (cliente.fila.offer(PULSACAO)) {
+                cliente.agendar();
+            }
+        }
+    }
+
+    /**
+     * Desliga os clientes com um envio parado ha mais de
+     * pais.changes.timeout-envio-ms. A thread presa no envio e interrompida e,
+     * enquanto o envio nao acaba, o executor tem uma thread a mais
+     **/
+    @Scheduled(fixedDelayString = "${pais.changes.verificacao-envio-ms:1000}")
+    public void desligarEnviosParados() {
+        long agora = System.nanoTime();
+        long limite = TimeUnit.MILLISECONDS.toNanos(timeoutEnvio);
+        for (Cliente cliente : clientes) {
+            Thread enviando = cliente.enviando.get();
+            if (enviando != null && agora - cliente.enviandoDesde > limite
+                    && cliente.enviando.compareAndSet(enviando, null)) {
+                clientesDesligados.incrementAndGet();
+                cliente.remover();
+                ajustarThreads(1);
+                enviando.interrupt();
+            }
+        }
+    }
+
+    public int getClientes() {
+        return clientes.size();
+    }
+
+    public long getClientesDesligados() {
+        return clientesDesligados.get();
+    }
+
+    public synchronized long getUltimaSequencia() {
+        return ultimaSequencia;
+    }
+
+    // Ponto de extensao para os testes observarem o que e enviado
+    SseEmitter criarEmitter() {
+        return new SseEmitter(timeout);
+    }
+
+    private void ajustarThreads(int diferenca) {
+        synchronized (executor) {
+            threadsPresas += diferenca;
+            int tamanho = threads + threadsPresas;
+            // O maximo nunca pode ficar abaixo do nucleo
+            if (diferenca > 0) {
+                executor.setMaxPoolSize(tamanho);
+                executor.setCorePoolSize(tamanho);
+            } else {
+                executor.setCorePoolSize(tamanho);
+                executor.setMaxPoolSize(tamanho);
+            }
+        }
+    }
+
+    private long sequenciaDe(String eventoId) {
+        int separador = eventoId.indexOf(':');
+        if (separador < 0 || !eventoId.substring(0, separador).equals(epoca)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventoId.substring(separador + 1));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private SseEmitter.SseEventBuilder evento(Alteracao alteracao) {
+        SseEmitter.SseEventBuilder evento = SseEmitter.event().id(epoca + ":" + alteracao.getSequencia())
+                .data(alteracao);
+        return REINICIO.equals(alteracao.getTipo()) ? evento.name("reset") : evento;
+    }
+
+    private class Cliente {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Alteracao> fila;
+        private final AtomicBoolean agendado = new AtomicBoolean();
+        private volatile boolean ativo = true;
+
+        // Thread que esta enviando a este cliente e desde quando, em nanoTime
+        private final AtomicReference<Thread> enviando = new AtomicReference<Thread>();
+        private volatile long enviandoDesde;
+
+        Cliente(SseEmitter emitter, int tamanhoDaFila) {
+            this.emitter = emitter;
+            this.fila = new ArrayBlockingQueue<Alteracao>(Math.max(1, tamanhoDaFila));
+        }
+
+        void enviar(List<Alteracao> lote) {
+            if (!ativo) {
+                return;
+            }
+            if (fila.remainingCapacity() < lote.size()) {
+                desligar();
+                return;
+            }
+            for (Alteracao alteracao : lote) {
+                // A pulsacao tambem entra na fila e pode ocupar o ultimo lugar
+                if (!fila.offer(alteracao)) {
+                    desligar();
+                    return;
+                }
+            }
+            agendar();
+        }
+
+        // Cliente lento: sai do feed em vez de atrasar quem escreve
+        private void desligar() {
+            clientesDesligados.incrementAndGet();
+            remover();
+            executor.execute(emitter::complete);
+        }
+
+        void reiniciar(Alteracao reinicio) {
+            if (!ativo) {
+                return;
+            }
+            // O que estava na fila tambem fica coberto pelo REINICIO
+            fila.clear();
+            fila.offer(reinicio);
+            agendar();
+        }
+
+        void agendar() {
+            if (ativo && !fila.isEmpty() && agendado.compareAndSet(false, true)) {
+                executor.execute(this::esvaziar);
+            }
+        }
+
+        void remover() {
+            ativo = false;
+            clientes.remove(this);
+        }
+
+        private void esvaziar() {
+            try {
+                Alteracao alteracao;
+                while (ativo && (alteracao = fila.poll()) != null) {
+                    if (alteracao == PULSACAO) {
+                        enviar(SseEmitter.event().comment("pulsacao"));
+                    } else {
+                        enviar(evento(alteracao));
+                    }
+                }
+            } catch (IOException | IllegalStateException ex) {
+                // O cliente foi embora ou o emitter ja terminou
+                remover();
+            } finally {
+                agendado.set(false);
+            }
+            // Um evento pode ter chegado depois do ultimo poll e antes do set
+            agendar();
+        }
+
+        private void enviar(SseEmitter.SseEventBuilder evento) throws IOException {
+            Thread atual = Thread.currentThread();
+            enviandoDesde = System.nanoTime();
+            enviando.set(atual);
+            try {
+                emitter.send(evento);
+            } finally {
+                if (!enviando.compareAndSet(atual, null)) {
+                    // O envio ficou parado e o cliente foi desligado: a thread
+                    // extra do executor ja nao e precisa
+                    ajustarThreads(-1);
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.gasparcossa.springbootapiproject.event;
+
+import com.gasparcossa.springbootapiproject.model.Pais;
+import lombok.Data;
+
+/**
+ * Um pais criado, atualizado ou deletado. O PaisService publica as alteracoes
+ * de cada transacao juntas num PaisesAlteradosEvent, que os componentes que
+ * guardam paises em memoria escutam depois do commit para se manterem
+ * atualizados
+ */
+@Data
+public class PaisAlteradoEvent {
+
+    public enum Tipo {
+        CRIADO, ATUALIZADO, REMOVIDO
+    }
+
+    private final Tipo tipo;
+
+    private final long id;
+
+    // Estado do pais depois da alteracao, nullo quando foi deletado
+    private final Pais pais;
+
+}
@@ -0,0 +1,23 @@
+package com.gasparcossa.springbootapiproject.event;
+
+import java.util.Collections;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * Evento publicado pelo PaisService uma vez por transacao, com todas as
+ * alteracoes que ela confirmou. Um lote do /saveBatch e um unico evento, assim
+ * quem guarda paises em memoria aplica o lote todo de uma vez, sem uma copia
+ * das suas estruturas por pais
+ */
+@Data
+public class PaisesAlteradosEvent {
+
+    // Na ordem em que foram feitas
+    private final List<PaisAlteradoEvent> alteracoes;
+
+    public static PaisesAlteradosEvent de(PaisAlteradoEvent alteracao) {
+        return new PaisesAlteradosEvent(Collections.singletonList(alteracao));
+    }
+
+}
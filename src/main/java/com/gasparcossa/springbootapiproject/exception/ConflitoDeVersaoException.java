@@ -0,0 +1,26 @@
+package com.gasparcossa.springbootapiproject.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import lombok.Data;
+
+/**
+ * Excessao lancada quando um recurso foi alterado por outra requisicao depois
+ * de o cliente ter lido a versao que quer alterar
+ */
+@Data
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class ConflitoDeVersaoException extends RuntimeException {
+
+    private static final long serialVersionUID = 1l;
+    private String nomeDoRecurso;
+    private Object id;
+    private Long versao;
+
+    public ConflitoDeVersaoException(String nomeDoRecurso, Object id, Long versao) {
+        super(String.format("%s com Id: %s ja nao esta na versao %s", nomeDoRecurso, id, versao), null, false, false);
+        this.nomeDoRecurso = nomeDoRecurso;
+        this.id = id;
+        this.versao = versao;
+    }
+}
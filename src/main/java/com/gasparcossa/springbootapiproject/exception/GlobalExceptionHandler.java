@@ -10,6 +10,8 @@ import java.util.stream.Collectors;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -59,6 +61,60 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
   }
 
+  /**
+   * Customiza o resultado quando a base de dados rejeita uma escrita por violar
+   * uma restricao, como o indice unico da capital quando dois pedidos
+   * concorrentes tentam cadastrar a mesma capital
+   * 
+   * @param ex Objecto da classe DataIntegrityViolationException que origina a
+   *           excessao
+   * @return ResponseEntity com o erro e o status de conflito
+   **/
+  @ExceptionHandler({ DataIntegrityViolationException.class })
+  public ResponseEntity<Object> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+    List<String> errors = new ArrayList<String>();
+    if (ex.getCause() instanceof org.hibernate.exception.ConstraintViolationException
+        && ((org.hibernate.exception.ConstraintViolationException) ex.getCause()).getConstraintName() != null
+        && ((org.hibernate.exception.ConstraintViolationException) ex.getCause()).getConstraintName()
+            .toLowerCase().contains("pais_capital_uk")) {
+      errors.add("Nao podes inserir uma capital ja cadastrada!");
+    } else {
+      errors.add("A operacao viola uma restricao da base de dados");
+    }
+    return new ResponseEntity<>(errors, HttpStatus.CONFLICT);
+  }
+
+  /**
+   * Customiza o resultado quando um pedido e rejeitado pelo limite de
+   * concorrencia, com o header Retry-After para o cliente saber quando tentar
+   * de novo
+   * 
+   * @param ex Objecto da classe SobrecargaException que origina a excessao
+   * @return ResponseEntity com o erro, o header Retry-After e o status 503
+   **/
+  @ExceptionHandler({ SobrecargaException.class })
+  public ResponseEntity<Object> handleSobrecarga(SobrecargaException ex) {
+    List<String> errors = new ArrayList<String>();
+    errors.add(ex.getMessage());
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSegundos()));
+    return new ResponseEntity<Object>(errors, headers, HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
+  /**
+   * Customiza o resultado quando a fila do executor das respostas assincronas,
+   * como o /export, esta cheia
+   * 
+   * @param ex Objecto da classe TaskRejectedException que origina a excessao
+   * @return ResponseEntity com o erro e o status 503
+   **/
+  @ExceptionHandler({ TaskRejectedException.class })
+  public ResponseEntity<Object> handleTaskRejected(TaskRejectedException ex) {
+    List<String> errors = new ArrayList<String>();
+    errors.add("A API esta a exportar o maximo de pedidos possivel, tente de novo mais tarde");
+    return new ResponseEntity<Object>(errors, new HttpHeaders(), HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
   /**
    * Customiza a mensagem de exceção quando um argumento de método não é o tipo esperado
    * 
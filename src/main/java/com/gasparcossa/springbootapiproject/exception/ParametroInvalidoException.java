@@ -0,0 +1,23 @@
+package com.gasparcossa.springbootapiproject.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import lombok.Data;
+
+/**
+ * Excessao lancada quando um parametro da requisicao tem um valor nao aceite
+ */
+@Data
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class ParametroInvalidoException extends RuntimeException {
+
+    private static final long serialVersionUID = 1l;
+    private String nomeDoParametro;
+    private Object valorDoParametro;
+
+    public ParametroInvalidoException(String nomeDoParametro, Object valorDoParametro) {
+        super(String.format("O parametro %s nao aceita o valor: %s", nomeDoParametro, valorDoParametro));
+        this.nomeDoParametro = nomeDoParametro;
+        this.valorDoParametro = valorDoParametro;
+    }
+}
@@ -5,7 +5,9 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import lombok.Data;
 
 /**
- * Classe que customiza mensagens de excessoes
+ * Classe que customiza mensagens de excessoes. Um recurso nao encontrado e uma
+ * resposta normal da API, por isso a excessao nao guarda o stack trace, que
+ * seria o maior custo de um 404
  */
 @Data
 @ResponseStatus(value = HttpStatus.NOT_FOUND)
@@ -17,10 +19,13 @@ public class RecursoNaoEncontradoException extends RuntimeException {
     private Object valorDoCampo;
 
     public RecursoNaoEncontradoException(String nomeDoRecurso, String nomeDoCampo, Object valorDoCampo) {
-        super(String.format("%s com %s: %s nao foi encontrado", nomeDoRecurso, nomeDoCampo, valorDoCampo));
+        super(String.format("%s com %s: %s nao foi encontrado", nomeDoRecurso, nomeDoCampo, valorDoCampo), null,
+                false, false);
         this.nomeDoRecurso = nomeDoRecurso;
         this.nomeDoCampo = nomeDoCampo;
         this.valorDoCampo = valorDoCampo;
     }
-    public RecursoNaoEncontradoException(){}
+    public RecursoNaoEncontradoException(){
+        super(null, null, false, false);
+    }
 }
\ No newline at end of file
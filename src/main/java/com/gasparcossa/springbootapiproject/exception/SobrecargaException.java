@@ -0,0 +1,26 @@
+package com.gasparcossa.springbootapiproject.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import lombok.Data;
+
+/**
+ * Excessao lancada quando a API ja atende o limite de pedidos simultaneos de
+ * uma classe de endpoints e rejeita o pedido em vez de o por na fila
+ */
+@Data
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class SobrecargaException extends RuntimeException {
+
+    private static final long serialVersionUID = 1l;
+    private String classe;
+    private long retryAfterSegundos;
+
+    public SobrecargaException(String classe, long retryAfterSegundos) {
+        // Sem stack trace, sob sobrecarga ela e lancada muitas vezes por segundo
+        super(String.format("A API esta sobrecarregada nos pedidos de %s, tente de novo em %s segundos", classe,
+                retryAfterSegundos), null, false, false);
+        this.classe = classe;
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+}
@@ -0,0 +1,112 @@
+package com.gasparcossa.springbootapiproject.index;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom para textos. Responde se um valor talvez foi adicionado ou se
+ * com certeza nunca foi. Os bits sao atomicos, por isso pode ser lido e
+ * escrito por varias threads sem lock
+ */
+public class FiltroDeBloom {
+
+    private final AtomicLongArray palavras;
+    private final long bits;
+    private final int funcoes;
+    private final AtomicLong elementos = new AtomicLong();
+
+    /**
+     * Cria um filtro dimensionado para a quantidade de elementos e a taxa de
+     * falsos positivos informadas
+     * 
+     * @param elementosEsperados     Quantidade de valores que devem ser adicionados
+     * @param taxaDeFalsosPositivos  Probabilidade desejada de um falso positivo
+     **/
+    public FiltroDeBloom(long elementosEsperados, double taxaDeFalsosPositivos) {
+        long n = Math.max(1, elementosEsperados);
+        long m = (long) Math.ceil(-n * Math.log(taxaDeFalsosPositivos) / (Math.log(2) * Math.log(2)));
+        this.palavras = new AtomicLongArray((int) ((Math.max(64, m) + 63) / 64));
+        this.bits = palavras.length() * 64L;
+        this.funcoes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+    }
+
+    public void adicionar(String valor) {
+        long hash1 = hash(valor);
+        long hash2 = misturar(hash1);
+        for (int i = 0; i < funcoes; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bits);
+            int palavra = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            long atual;
+            do {
+                atual = palavras.get(palavra);
+                if ((atual & mascara) != 0) {
+                    break;
+                }
+            } while (!palavras.compareAndSet(palavra, atual, atual | mascara));
+        }
+        elementos.incrementAndGet();
+    }
+
+    /**
+     * @param valor Valor procurado
+     * @return false se o valor com certeza nunca foi adicionado
+     **/
+    public boolean podeConter(String valor) {
+        long hash1 = hash(valor);
+        long hash2 = misturar(hash1);
+        for (int i = 0; i < funcoes; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bits);
+            if ((palavras.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getBits() {
+        return bits;
+    }
+
+    public int getFuncoes() {
+        return funcoes;
+    }
+
+    public long getElementos() {
+        return elementos.get();
+    }
+
+    public long getBytes() {
+        return bits / 8;
+    }
+
+    /**
+     * Taxa de falsos positivos esperada com a quantidade de valores ja
+     * adicionados
+     **/
+    public double getTaxaDeFalsosPositivosEstimada() {
+        return Math.pow(1 - Math.exp(-(double) funcoes * elementos.get() / bits), funcoes);
+    }
+
+    // FNV-1a de 64 bits sobre os bytes UTF-8 do valor
+    private static long hash(String valor) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // Finalizador do MurmurHash3, usado para derivar o segundo hash do primeiro
+    private static long misturar(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash | 1;
+    }
+
+}
@@ -0,0 +1,178 @@
+package com.gasparcossa.springbootapiproject.index;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Indice imutavel dos paises ordenados pela area (e pelo id no empate), guardado
+ * em dois arrays primitivos paralelos. As buscas sao binarias e so alocam o
+ * array de ids devolvido
+ */
+public final class IndiceArea {
+
+    private final double[] areas;
+    private final long[] ids;
+
+    private IndiceArea(double[] areas, long[] ids) {
+        this.areas = areas;
+        this.ids = ids;
+    }
+
+    /**
+     * Cria o indice a partir de arrays paralelos de ids e areas em qualquer ordem
+     **/
+    public static IndiceArea de(long[] ids, double[] areas) {
+        Integer[] ordem = new Integer[ids.length];
+        for (int i = 0; i < ordem.length; i++) {
+            ordem[i] = i;
+        }
+        Arrays.sort(ordem, (a, b) -> {
+            int comparacao = Double.compare(areas[a], areas[b]);
+            return comparacao != 0 ? comparacao : Long.compare(ids[a], ids[b]);
+        });
+        double[] areasOrdenadas = new double[ids.length];
+        long[] idsOrdenados = new long[ids.length];
+        for (int i = 0; i < ordem.length; i++) {
+            areasOrdenadas[i] = areas[ordem[i]];
+            idsOrdenados[i] = ids[ordem[i]];
+        }
+        return new IndiceArea(areasOrdenadas, idsOrdenados);
+    }
+
+    /**
+     * Cria um indice novo sem o pais com o id informado e, se a area nao for
+     * nulla, com ele na sua nova posicao
+     * 
+     * @param id   Id do pais alterado
+     * @param area Nova area do pais, nullo se foi deletado
+     * @return O indice novo
+     **/
+    public IndiceArea com(long id, Double area) {
+        return com(Collections.singletonMap(id, area));
+    }
+
+    /**
+     * Cria um indice novo com varias alteracoes de uma vez: os paises alterados
+     * saem das suas posicoes e os que tem area sao ordenados entre si e
+     * intercalados com os restantes, numa unica copia dos arrays
+     * 
+     * @param alteracoes Nova area de cada pais alterado, nulla se foi deletado
+     * @return O indice novo
+     **/
+    public IndiceArea com(Map<Long, Double> alteracoes) {
+        int quantidade = 0;
+        for (Double area : alteracoes.values()) {
+            if (area != null) {
+                quantidade++;
+            }
+        }
+        long[] idsNovos = new long[quantidade];
+        double[] areasNovas = new double[quantidade];
+        int n = 0;
+        for (Map.Entry<Long, Double> alteracao : alteracoes.entrySet()) {
+            if (alteracao.getValue() != null) {
+                idsNovos[n] = alteracao.getKey();
+                areasNovas[n++] = alteracao.getValue();
+            }
+        }
+        IndiceArea novos = de(idsNovos, areasNovas);
+
+        int mantidos = 0;
+        for (long id : ids) {
+            if (!alteracoes.containsKey(id)) {
+                mantidos++;
+            }
+        }
+        double[] novasAreas = new double[mantidos + quantidade];
+        long[] novosIds = new long[mantidos + quantidade];
+        int destino = 0;
+        int j = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (alteracoes.containsKey(ids[i])) {
+                continue;
+            }
+            while (j < quantidade && antes(novos.areas[j], novos.ids[j], areas[i], ids[i])) {
+                novasAreas[destino] = novos.areas[j];
+                novosIds[destino++] = novos.ids[j++];
+            }
+            novasAreas[destino] = areas[i];
+            novosIds[destino++] = ids[i];
+        }
+        while (j < quantidade) {
+            novasAreas[destino] = novos.areas[j];
+            novosIds[destino++] = novos.ids[j++];
+        }
+        return new IndiceArea(novasAreas, novosIds);
+    }
+
+    private static boolean antes(double area, long id, double outraArea, long outroId) {
+        int comparacao = Double.compare(area, outraArea);
+        return comparacao < 0 || (comparacao == 0 && id < outroId);
+    }
+
+    public int getTamanho() {
+        return ids.length;
+    }
+
+    /**
+     * Os ids dos paises com area entre min e max, inclusive, em ordem crescente
+     * de area
+     * 
+     * @param min    Menor area
+     * @param max    Maior area
+     * @param limite Quantidade maxima de ids
+     **/
+    public long[] idsEntre(double min, double max, int limite) {
+        int inicio = primeiraPosicaoMaiorOuIgual(min);
+        int fim = primeiraPosicaoMaior(max);
+        return Arrays.copyOfRange(ids, inicio, Math.max(inicio, Math.min(fim, inicio + limite)));
+    }
+
+    /**
+     * Os ids dos k paises de menor area, do menor para o maior
+     **/
+    public long[] menores(int k) {
+        return Arrays.copyOfRange(ids, 0, Math.min(k, ids.length));
+    }
+
+    /**
+     * Os ids dos k paises de maior area, do maior para o menor
+     **/
+    public long[] maiores(int k) {
+        long[] maiores = new long[Math.min(k, ids.length)];
+        for (int i = 0; i < maiores.length; i++) {
+            maiores[i] = ids[ids.length - 1 - i];
+        }
+        return maiores;
+    }
+
+    private int primeiraPosicaoMaiorOuIgual(double area) {
+        int baixo = 0;
+        int alto = areas.length;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (Double.compare(areas[meio], area) < 0) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    private int primeiraPosicaoMaior(double area) {
+        int baixo = 0;
+        int alto = areas.length;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (Double.compare(areas[meio], area) <= 0) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+}
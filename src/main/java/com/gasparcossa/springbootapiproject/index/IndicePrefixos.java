@@ -0,0 +1,168 @@
+package com.gasparcossa.springbootapiproject.index;
+
+import com.gasparcossa.springbootapiproject.dto.Sugestao;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Indice imutavel dos valores de um atributo de texto (nome ou capital) para
+ * busca por prefixo. Os valores ficam ordenados pela forma normalizada (sem
+ * acentos e em minusculas) em tres arrays paralelos, e uma busca e uma procura
+ * binaria seguida da leitura das posicoes seguintes
+ */
+public final class IndicePrefixos {
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+
+    private final String[] chaves;
+    private final String[] valores;
+    private final long[] ids;
+
+    private IndicePrefixos(String[] chaves, String[] valores, long[] ids) {
+        this.chaves = chaves;
+        this.valores = valores;
+        this.ids = ids;
+    }
+
+    /**
+     * Forma usada para comparar: sem acentos e em minusculas
+     **/
+    public static String normalizar(String texto) {
+        return ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Cria o indice a partir de arrays paralelos de ids e valores em qualquer
+     * ordem. Valores nullos sao ignorados
+     **/
+    public static IndicePrefixos de(long[] ids, String[] valores) {
+        List<Integer> ordem = new ArrayList<Integer>(ids.length);
+        String[] normalizados = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            if (valores[i] != null) {
+                normalizados[i] = normalizar(valores[i]);
+                ordem.add(i);
+            }
+        }
+        ordem.sort((a, b) -> {
+            int comparacao = normalizados[a].compareTo(normalizados[b]);
+            return comparacao != 0 ? comparacao : Long.compare(ids[a], ids[b]);
+        });
+        String[] chavesOrdenadas = new String[ordem.size()];
+        String[] valoresOrdenados = new String[ordem.size()];
+        long[] idsOrdenados = new long[ordem.size()];
+        for (int i = 0; i < ordem.size(); i++) {
+            chavesOrdenadas[i] = normalizados[ordem.get(i)];
+            valoresOrdenados[i] = valores[ordem.get(i)];
+            idsOrdenados[i] = ids[ordem.get(i)];
+        }
+        return new IndicePrefixos(chavesOrdenadas, valoresOrdenados, idsOrdenados);
+    }
+
+    /**
+     * Cria um indice novo sem o pais com o id informado e, se o valor nao for
+     * nullo, com ele na sua nova posicao
+     * 
+     * @param id    Id do pais alterado
+     * @param valor Novo valor do atributo, nullo se o pais foi deletado
+     * @return O indice novo
+     **/
+    public IndicePrefixos com(long id, String valor) {
+        return com(Collections.singletonMap(id, valor));
+    }
+
+    /**
+     * Cria um indice novo com varias alteracoes de uma vez: os paises alterados
+     * saem das suas posicoes e os que tem valor sao ordenados entre si e
+     * intercalados com os restantes, numa unica copia dos arrays
+     * 
+     * @param alteracoes Novo valor do atributo de cada pais alterado, nullo se
+     *                   o pais foi deletado
+     * @return O indice novo
+     **/
+    public IndicePrefixos com(Map<Long, String> alteracoes) {
+        long[] idsAlterados = new long[alteracoes.size()];
+        String[] valoresAlterados = new String[alteracoes.size()];
+        int n = 0;
+        for (Map.Entry<Long, String> alteracao : alteracoes.entrySet()) {
+            idsAlterados[n] = alteracao.getKey();
+            valoresAlterados[n++] = alteracao.getValue();
+        }
+        // Os valores nullos ficam de fora
+        IndicePrefixos novos = de(idsAlterados, valoresAlterados);
+
+        int mantidos = 0;
+        for (long id : ids) {
+            if (!alteracoes.containsKey(id)) {
+                mantidos++;
+            }
+        }
+        int tamanho = mantidos + novos.ids.length;
+        String[] novasChaves = new String[tamanho];
+        String[] novosValores = new String[tamanho];
+        long[] novosIds = new long[tamanho];
+        int destino = 0;
+        int j = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (alteracoes.containsKey(ids[i])) {
+                continue;
+            }
+            while (j < novos.ids.length && antes(novos.chaves[j], novos.ids[j], chaves[i], ids[i])) {
+                novasChaves[destino] = novos.chaves[j];
+                novosValores[destino] = novos.valores[j];
+                novosIds[destino++] = novos.ids[j++];
+            }
+            novasChaves[destino] = chaves[i];
+            novosValores[destino] = valores[i];
+            novosIds[destino++] = ids[i];
+        }
+        while (j < novos.ids.length) {
+            novasChaves[destino] = novos.chaves[j];
+            novosValores[destino] = novos.valores[j];
+            novosIds[destino++] = novos.ids[j++];
+        }
+        return new IndicePrefixos(novasChaves, novosValores, novosIds);
+    }
+
+    private static boolean antes(String chave, long id, String outraChave, long outroId) {
+        int comparacao = chave.compareTo(outraChave);
+        return comparacao < 0 || (comparacao == 0 && id < outroId);
+    }
+
+    public int getTamanho() {
+        return ids.length;
+    }
+
+    /**
+     * Os valores que comecam com o prefixo, ignorando acentos e maiusculas, em
+     * ordem alfabetica
+     * 
+     * @param prefixo Inicio do valor
+     * @param limite  Quantidade maxima de sugestoes
+     **/
+    public List<Sugestao> comPrefixo(String prefixo, int limite) {
+        String chave = normalizar(prefixo);
+        int inicio = Arrays.binarySearch(chaves, chave);
+        if (inicio < 0) {
+            inicio = -inicio - 1;
+        } else {
+            // Com valores repetidos a procura binaria pode cair em qualquer um deles
+            while (inicio > 0 && chaves[inicio - 1].equals(chave)) {
+                inicio--;
+            }
+        }
+        List<Sugestao> sugestoes = new ArrayList<Sugestao>(Math.min(limite, 16));
+        for (int i = inicio; i < chaves.length && sugestoes.size() < limite && chaves[i].startsWith(chave); i++) {
+            sugestoes.add(new Sugestao(ids[i], valores[i]));
+        }
+        return sugestoes;
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.gasparcossa.springbootapiproject.index;
+
+import com.gasparcossa.springbootapiproject.event.PaisAlteradoEvent;
+import com.gasparcossa.springbootapiproject.event.PaisesAlteradosEvent;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Mantem os IndicePrefixos do nome e da capital de todos paises, atualizados a
+ * cada escrita confirmada e reconstruidos pela PaisRecarga
+ */
+@Component
+public class PaisAutocompletar {
+
+    // Nullos enquanto os indices ainda nao foram construidos
+    private volatile IndicePrefixos nomes;
+    private volatile IndicePrefixos capitais;
+
+    /**
+     * @param campo nome ou capital
+     * @return O indice atual do campo, ou nullo se ainda nao foi construido
+     **/
+    public IndicePrefixos getIndice(String campo) {
+        return campo.equals("nome") ? nomes : capitais;
+    }
+
+    /**
+     * Troca os indices por outros feitos com os paises lidos da Base de dados
+     * 
+     * @param paises    Todos paises, lidos pela PaisRecarga
+     * @param pendentes Alteracoes confirmadas desde o inicio da leitura
+     **/
+    public synchronized void reconstruir(List<Pais> paises, Supplier<PaisesAlteradosEvent> pendentes) {
+        long[] ids = new long[paises.size()];
+        String[] valoresDosNomes = new String[paises.size()];
+        String[] valoresDasCapitais = new String[paises.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = paises.get(i).getId();
+            valoresDosNomes[i] = paises.get(i).getNome();
+            valoresDasCapitais[i] = paises.get(i).getCapital();
+        }
+        IndicePrefixos novosNomes = IndicePrefixos.de(ids, valoresDosNomes);
+        IndicePrefixos novasCapitais = IndicePrefixos.de(ids, valoresDasCapitais);
+        PaisesAlteradosEvent alteracoes = pendentes.get();
+        if (!alteracoes.getAlteracoes().isEmpty()) {
+            novosNomes = novosNomes.com(valores(alteracoes, true));
+            novasCapitais = novasCapitais.com(valores(alteracoes, false));
+        }
+        nomes = novosNomes;
+        capitais = novasCapitais;
+    }
+
+    /**
+     * Aplica as escritas confirmadas numa transacao em indices novos
+     * 
+     * @param eventos Alteracoes confirmadas, publicadas pelo PaisService
+     **/
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void aplicar(PaisesAlteradosEvent eventos) {
+        if (nomes != null) {
+            nomes = nomes.com(valores(eventos, true));
+        }
+        if (capitais != null) {
+            capitais = capitais.com(valores(eventos, false));
+        }
+    }
+
+    // Se o mesmo pais muda mais de uma vez, vale a ultima alteracao
+    private static Map<Long, String> valores(PaisesAlteradosEvent eventos, boolean doNome) {
+        Map<Long, String> valores = new HashMap<Long, String>();
+        for (PaisAlteradoEvent evento : eventos.getAlteracoes()) {
+            Pais pais = evento.getPais();
+            valores.put(evento.getId(), pais == null ? null : doNome ? pais.getNome() : pais.getCapital());
+        }
+        return valores;
+    }
+
+}
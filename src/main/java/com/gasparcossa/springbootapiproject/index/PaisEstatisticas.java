@@ -0,0 +1,160 @@
+package com.gasparcossa.springbootapiproject.index;
+
+import com.gasparcossa.springbootapiproject.dto.EstatisticaRegiao;
+import com.gasparcossa.springbootapiproject.event.PaisAlteradoEvent;
+import com.gasparcossa.springbootapiproject.event.PaisesAlteradosEvent;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Mantem a quantidade e a area total dos paises de cada regiao e sub-regiao,
+ * construidas no arranque e atualizadas a cada escrita confirmada, incluindo a
+ * mudanca de um pais de regiao. As listas publicadas ja estao prontas, entao
+ * responder ao /stats nao percorre a tabela nem os paises.
+ *
+ * As estatisticas sao feitas uma vez, no arranque, com a primeira leitura da
+ * PaisRecarga. Guardar onde cada pais esta contado e preciso porque os eventos
+ * so trazem o estado novo, mas nao ha outra leitura da tabela depois
+ */
+@Component
+public class PaisEstatisticas {
+
+    // Onde cada pais esta contado, para retirar a sua parte quando ele muda ou e
+    // removido. Os eventos so trazem o estado novo. Usados sob o lock do objeto
+    private Map<Long, Localizacao> paises;
+    private Map<String, Acumulado> regioes;
+    private Map<String, Acumulado> subRegioes;
+
+    // Nullas enquanto as estatisticas ainda nao foram construidas
+    private volatile List<EstatisticaRegiao> porRegiao;
+    private volatile List<EstatisticaRegiao> porSubRegiao;
+
+    /**
+     * @return As estatisticas de cada regiao em ordem alfabetica, ou nullo se
+     *         ainda nao foram construidas
+     **/
+    public List<EstatisticaRegiao> getPorRegiao() {
+        return porRegiao;
+    }
+
+    /**
+     * @return As estatisticas de cada sub-regiao em ordem alfabetica, ou nullo
+     *         se ainda nao foram construidas
+     **/
+    public List<EstatisticaRegiao> getPorSubRegiao() {
+        return porSubRegiao;
+    }
+
+    /**
+     * Refaz as estatisticas com os paises lidos da Base de dados
+     * 
+     * @param lidos     Todos paises, lidos pela PaisRecarga
+     * @param pendentes Alteracoes confirmadas desde o inicio da leitura
+     **/
+    public synchronized void reconstruir(List<Pais> lidos, Supplier<PaisesAlteradosEvent> pendentes) {
+        paises = new HashMap<Long, Localizacao>(lidos.size() * 2);
+        regioes = new TreeMap<String, Acumulado>();
+        subRegioes = new TreeMap<String, Acumulado>();
+        for (Pais pais : lidos) {
+            contar(pais.getId(), new Localizacao(pais.getRegiao(), pais.getSubRegiao(), pais.getArea()));
+        }
+        for (PaisAlteradoEvent evento : pendentes.get().getAlteracoes()) {
+            aplicar(evento);
+        }
+        publicar();
+    }
+
+    /**
+     * Aplica as escritas confirmadas numa transacao. Reaplicar o mesmo evento
+     * nao muda nada, porque a parte antiga do pais e sempre retirada antes
+     * 
+     * @param eventos Alteracoes confirmadas, publicadas pelo PaisService
+     **/
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void aplicar(PaisesAlteradosEvent eventos) {
+        if (paises == null) {
+            return;
+        }
+        for (PaisAlteradoEvent evento : eventos.getAlteracoes()) {
+            aplicar(evento);
+        }
+        publicar();
+    }
+
+    private void aplicar(PaisAlteradoEvent evento) {
+        Localizacao anterior = paises.remove(evento.getId());
+        if (anterior != null) {
+            somar(regioes, anterior.regiao, -1, -anterior.area);
+            somar(subRegioes, anterior.subRegiao, -1, -anterior.area);
+        }
+        Pais pais = evento.getPais();
+        if (pais != null) {
+            contar(evento.getId(), new Localizacao(pais.getRegiao(), pais.getSubRegiao(), pais.getArea()));
+        }
+    }
+
+    private void contar(long id, Localizacao localizacao) {
+        paises.put(id, localizacao);
+        somar(regioes, localizacao.regiao, 1, localizacao.area);
+        somar(subRegioes, localizacao.subRegiao, 1, localizacao.area);
+    }
+
+    private static void somar(Map<String, Acumulado> acumulados, String nome, long paises, double area) {
+        Acumulado atual = acumulados.get(nome);
+        long total = (atual == null ? 0 : atual.paises) + paises;
+        if (total <= 0) {
+            acumulados.remove(nome);
+        } else {
+            acumulados.put(nome, new Acumulado(total, (atual == null ? 0 : atual.areaTotal) + area));
+        }
+    }
+
+    private void publicar() {
+        porRegiao = listar(regioes);
+        porSubRegiao = listar(subRegioes);
+    }
+
+    // Ha poucas regioes, refazer a lista a cada escrita custa pouco
+    private static List<EstatisticaRegiao> listar(Map<String, Acumulado> acumulados) {
+        List<EstatisticaRegiao> lista = new ArrayList<EstatisticaRegiao>(acumulados.size());
+        for (Map.Entry<String, Acumulado> entrada : acumulados.entrySet()) {
+            Acumulado acumulado = entrada.getValue();
+            lista.add(new EstatisticaRegiao(entrada.getKey(), acumulado.paises, acumulado.areaTotal,
+                    acumulado.areaTotal / acumulado.paises));
+        }
+        return Collections.unmodifiableList(lista);
+    }
+
+    private static class Localizacao {
+
+        private final String regiao;
+        private final String subRegiao;
+        private final double area;
+
+        Localizacao(String regiao, String subRegiao, double area) {
+            this.regiao = regiao;
+            this.subRegiao = subRegiao;
+            this.area = area;
+        }
+    }
+
+    private static class Acumulado {
+
+        private final long paises;
+        private final double areaTotal;
+
+        Acumulado(long paises, double areaTotal) {
+            this.paises = paises;
+            this.areaTotal = areaTotal;
+        }
+    }
+
+}
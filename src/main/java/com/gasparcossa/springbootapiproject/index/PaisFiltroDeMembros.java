@@ -0,0 +1,146 @@
+package com.gasparcossa.springbootapiproject.index;
+
+import com.gasparcossa.springbootapiproject.event.PaisAlteradoEvent;
+import com.gasparcossa.springbootapiproject.event.PaisesAlteradosEvent;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Um filtro de Bloom por atributo pesquisavel do Pais (nome, capital, regiao e
+ * sub-regiao). Permite responder 404 a um valor que nao existe sem ir a Base de
+ * dados.
+ *
+ * O filtro recebe os valores novos a cada escrita e e reconstruido pela
+ * PaisRecarga, o que limpa os valores deletados.
+ *
+ * Um filtro de Bloom nunca pode dar falso negativo, mas aqui so as escritas
+ * desta instancia entram no filtro antes da reconstrucao. Com varias instancias
+ * um pais criado noutra daria 404 ate a proxima reconstrucao, entao o filtro
+ * vem desligado e so deve ser ligado (pais.filtro.ativo) com uma unica
+ * instancia da API
+ */
+@Component
+public class PaisFiltroDeMembros {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PaisFiltroDeMembros.class);
+
+    @Value("${pais.filtro.ativo:false}")
+    private boolean ativo;
+
+    @Value("${pais.filtro.elementos-esperados:10000}")
+    private long elementosEsperados;
+
+    @Value("${pais.filtro.taxa-falsos-positivos:0.01}")
+    private double taxaDeFalsosPositivos;
+
+    // Nullo enquanto o filtro nao foi construido, e entao tudo pode existir
+    private volatile Map<String, FiltroDeBloom> filtros;
+
+    private final AtomicLong consultasEvitadas = new AtomicLong();
+
+    /**
+     * @param atributo Nome do atributo da classe Pais
+     * @param valor    Valor procurado
+     * @return false se com certeza nenhum pais tem esse valor no atributo
+     **/
+    public boolean podeExistir(String atributo, Object valor) {
+        Map<String, FiltroDeBloom> atuais = filtros;
+        if (atuais == null || !atuais.containsKey(atributo)) {
+            return true;
+        }
+        if (valor != null && atuais.get(atributo).podeConter(valor.toString())) {
+            return true;
+        }
+        consultasEvitadas.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Troca os filtros por outros feitos com os paises lidos da Base de dados
+     * 
+     * @param paises    Todos paises, lidos pela PaisRecarga
+     * @param pendentes Alteracoes confirmadas desde o inicio da leitura
+     **/
+    public synchronized void reconstruir(List<Pais> paises, Supplier<PaisesAlteradosEvent> pendentes) {
+        if (!ativo) {
+            return;
+        }
+        long capacidade = Math.max(elementosEsperados, paises.size() * 2L);
+        Map<String, FiltroDeBloom> novos = new HashMap<String, FiltroDeBloom>();
+        novos.put("nome", new FiltroDeBloom(capacidade, taxaDeFalsosPositivos));
+        novos.put("capital", new FiltroDeBloom(capacidade, taxaDeFalsosPositivos));
+        novos.put("regiao", new FiltroDeBloom(capacidade, taxaDeFalsosPositivos));
+        novos.put("subRegiao", new FiltroDeBloom(capacidade, taxaDeFalsosPositivos));
+        for (Pais pais : paises) {
+            adicionar(novos, pais);
+        }
+        adicionar(novos, pendentes.get());
+        filtros = novos;
+        LOGGER.debug("Filtros de Bloom reconstruidos com {} paises", paises.size());
+    }
+
+    /**
+     * Adiciona os valores de um pais criado ou atualizado. Valores removidos
+     * continuam no filtro ate a proxima reconstrucao, o que so custa uma consulta
+     * 
+     * @param eventos Alteracoes confirmadas, publicadas pelo PaisService
+     **/
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void atualizar(PaisesAlteradosEvent eventos) {
+        Map<String, FiltroDeBloom> atuais = filtros;
+        if (atuais != null) {
+            adicionar(atuais, eventos);
+        }
+    }
+
+    /**
+     * Tamanho e taxa de falsos positivos de cada filtro
+     * 
+     * @return Mapa atributo -> metricas do filtro
+     **/
+    public Map<String, Map<String, Number>> getEstatisticas() {
+        Map<String, Map<String, Number>> estatisticas = new LinkedHashMap<String, Map<String, Number>>();
+        Map<String, FiltroDeBloom> atuais = filtros;
+        if (atuais != null) {
+            for (Map.Entry<String, FiltroDeBloom> filtro : atuais.entrySet()) {
+                Map<String, Number> metricas = new LinkedHashMap<String, Number>();
+                metricas.put("elementos", filtro.getValue().getElementos());
+                metricas.put("bytes", filtro.getValue().getBytes());
+                metricas.put("funcoes", filtro.getValue().getFuncoes());
+                metricas.put("taxaDeFalsosPositivos", filtro.getValue().getTaxaDeFalsosPositivosEstimada());
+                estatisticas.put(filtro.getKey(), metricas);
+            }
+        }
+        return estatisticas;
+    }
+
+    public long getConsultasEvitadas() {
+        return consultasEvitadas.get();
+    }
+
+    private static void adicionar(Map<String, FiltroDeBloom> filtros, PaisesAlteradosEvent eventos) {
+        for (PaisAlteradoEvent evento : eventos.getAlteracoes()) {
+            if (evento.getPais() != null) {
+                adicionar(filtros, evento.getPais());
+            }
+        }
+    }
+
+    private static void adicionar(Map<String, FiltroDeBloom> filtros, Pais pais) {
+        filtros.get("nome").adicionar(pais.getNome());
+        filtros.get("capital").adicionar(pais.getCapital());
+        filtros.get("regiao").adicionar(pais.getRegiao());
+        filtros.get("subRegiao").adicionar(pais.getSubRegiao());
+    }
+
+}
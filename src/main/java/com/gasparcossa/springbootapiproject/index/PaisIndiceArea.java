@@ -0,0 +1,71 @@
+package com.gasparcossa.springbootapiproject.index;
+
+import com.gasparcossa.springbootapiproject.event.PaisAlteradoEvent;
+import com.gasparcossa.springbootapiproject.event.PaisesAlteradosEvent;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Mantem o IndiceArea de todos paises, atualizado a cada escrita confirmada e
+ * reconstruido pela PaisRecarga
+ */
+@Component
+public class PaisIndiceArea {
+
+    // Nullo enquanto o indice ainda nao foi construido
+    private volatile IndiceArea indice;
+
+    /**
+     * @return O indice atual, ou nullo se ainda nao foi construido
+     **/
+    public IndiceArea getIndice() {
+        return indice;
+    }
+
+    /**
+     * Troca o indice por um feito com os paises lidos da Base de dados
+     * 
+     * @param paises    Todos paises, lidos pela PaisRecarga
+     * @param pendentes Alteracoes confirmadas desde o inicio da leitura
+     **/
+    public synchronized void reconstruir(List<Pais> paises, Supplier<PaisesAlteradosEvent> pendentes) {
+        long[] ids = new long[paises.size()];
+        double[] areas = new double[paises.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = paises.get(i).getId();
+            areas[i] = paises.get(i).getArea();
+        }
+        indice = com(IndiceArea.de(ids, areas), pendentes.get());
+    }
+
+    /**
+     * Aplica as escritas confirmadas numa transacao num indice novo
+     * 
+     * @param eventos Alteracoes confirmadas, publicadas pelo PaisService
+     **/
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void aplicar(PaisesAlteradosEvent eventos) {
+        IndiceArea atual = indice;
+        if (atual != null) {
+            indice = com(atual, eventos);
+        }
+    }
+
+    private static IndiceArea com(IndiceArea indice, PaisesAlteradosEvent eventos) {
+        if (eventos.getAlteracoes().isEmpty()) {
+            return indice;
+        }
+        // Se o mesmo pais muda mais de uma vez, vale a ultima alteracao
+        Map<Long, Double> areas = new HashMap<Long, Double>();
+        for (PaisAlteradoEvent evento : eventos.getAlteracoes()) {
+            areas.put(evento.getId(), evento.getPais() == null ? null : evento.getPais().getArea());
+        }
+        return indice.com(areas);
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.gasparcossa.springbootapiproject.index;
+
+import com.gasparcossa.springbootapiproject.event.PaisesAlteradosEvent;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Modo de leitura por snapshot. Quando ativo (pais.snapshot.ativo), guarda um
+ * PaisSnapshot de toda a tabela e o troca atomicamente depois de cada escrita
+ * confirmada, assim as leituras do PaisService nao precisam da Base de dados.
+ * O snapshot e relido pela PaisRecarga
+ */
+@Component
+public class PaisReadModel {
+
+    @Value("${pais.snapshot.ativo:false}")
+    private boolean ativo;
+
+    // Nullo enquanto o modo esta desligado ou o snapshot ainda nao foi lido
+    private volatile PaisSnapshot snapshot;
+
+    private final AtomicLong ultimaAlteracaoAplicada = new AtomicLong();
+
+    /**
+     * @return O snapshot atual, ou nullo se as leituras devem ir a Base de dados
+     **/
+    public PaisSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Troca o snapshot por um feito com os paises lidos da Base de dados
+     * 
+     * @param paises    Todos paises, lidos pela PaisRecarga
+     * @param pendentes Alteracoes confirmadas desde o inicio da leitura
+     **/
+    public synchronized void reconstruir(List<Pais> paises, Supplier<PaisesAlteradosEvent> pendentes) {
+        if (ativo) {
+            PaisSnapshot novo = PaisSnapshot.de(paises);
+            PaisesAlteradosEvent alteracoes = pendentes.get();
+            snapshot = alteracoes.getAlteracoes().isEmpty() ? novo : novo.com(alteracoes.getAlteracoes());
+        }
+    }
+
+    /**
+     * Aplica as escritas confirmadas numa transacao num snapshot novo e o
+     * publica
+     * 
+     * @param eventos Alteracoes confirmadas, publicadas pelo PaisService
+     **/
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void aplicar(PaisesAlteradosEvent eventos) {
+        PaisSnapshot atual = snapshot;
+        if (atual != null) {
+            snapshot = atual.com(eventos.getAlteracoes());
+            ultimaAlteracaoAplicada.set(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Ha quantos milissegundos o snapshot foi lido da Base de dados. Escritas de
+     * outras instancias feitas nesse intervalo ainda nao estao no snapshot
+     * 
+     * @return A idade do snapshot, ou -1 se nao ha snapshot
+     **/
+    public long getIdadeEmMilissegundos() {
+        PaisSnapshot atual = snapshot;
+        return atual == null ? -1 : System.currentTimeMillis() - atual.getCriadoEm();
+    }
+
+    public long getUltimaAlteracaoAplicada() {
+        return ultimaAlteracaoAplicada.get();
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.gasparcossa.springbootapiproject.index;
+
+import com.gasparcossa.springbootapiproject.cache.PaisVersoes;
+import com.gasparcossa.springbootapiproject.datasource.ContextoDeRoteamento;
+import com.gasparcossa.springbootapiproject.event.PaisAlteradoEvent;
+import com.gasparcossa.springbootapiproject.event.PaisesAlteradosEvent;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import com.gasparcossa.springbootapiproject.repository.PaisRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Le a tabela inteira no arranque e periodicamente, uma vez so, e reconstroi
+ * com ela todos os indices em memoria. Entre as recargas cada indice so recebe
+ * as escritas desta instancia da API, a recarga traz as escritas das outras
+ * instancias.
+ *
+ * A leitura e feita fora dos locks dos indices, entao as escritas confirmadas
+ * nao esperam por ela. Uma escrita confirmada durante a leitura pode nao estar
+ * no que foi lido: as alteracoes confirmadas desde o inicio da leitura ficam
+ * guardadas e cada indice reaplica-as sobre o que foi lido antes de se trocar.
+ * Reaplicar uma alteracao que a leitura ja viu nao muda nada
+ */
+@Component
+public class PaisRecarga {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PaisRecarga.class);
+
+    @Autowired
+    private PaisRepository paisRepository;
+
+    @Autowired
+    private PaisReadModel paisReadModel;
+
+    @Autowired
+    private PaisIndiceArea paisIndiceArea;
+
+    @Autowired
+    private PaisAutocompletar paisAutocompletar;
+
+    @Autowired
+    private PaisEstatisticas paisEstatisticas;
+
+    @Autowired
+    private PaisFiltroDeMembros paisFiltroDeMembros;
+
+    @Autowired
+    private PaisVersoes paisVersoes;
+
+    // So uma recarga de cada vez, a do arranque e a agendada podem coincidir
+    private final Object recarga = new Object();
+
+    // Alteracoes confirmadas desde o inicio da leitura, nullo fora de uma recarga
+    private List<PaisAlteradoEvent> pendentes;
+
+    /**
+     * Le todos paises da primaria e reconstroi os indices
+     **/
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${pais.recarga.intervalo-ms:30000}", initialDelayString = "${pais.recarga.intervalo-ms:30000}")
+    public void recarregar() {
+        synchronized (recarga) {
+            synchronized (this) {
+                pendentes = new ArrayList<PaisAlteradoEvent>();
+            }
+            try {
+                List<Pais> paises = ContextoDeRoteamento.naPrimaria(() -> paisRepository.findAll());
+                Supplier<PaisesAlteradosEvent> alteracoes = this::getPendentes;
+                paisReadModel.reconstruir(paises, alteracoes);
+                paisIndiceArea.reconstruir(paises, alteracoes);
+                paisAutocompletar.reconstruir(paises, alteracoes);
+                // As estatisticas so sao feitas no arranque, depois so as escritas as mudam
+                if (paisEstatisticas.getPorRegiao() == null) {
+                    paisEstatisticas.reconstruir(paises, alteracoes);
+                }
+                paisFiltroDeMembros.reconstruir(paises, alteracoes);
+                paisVersoes.expirar();
+                LOGGER.debug("Indices em memoria recarregados com {} paises", paises.size());
+            } finally {
+                synchronized (this) {
+                    pendentes = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Guarda as alteracoes confirmadas durante uma recarga. Corre antes dos
+     * listeners dos indices: quando um indice recebe uma alteracao ela ja esta
+     * nas pendentes, entao ou o indice a recebe depois de se trocar ou a
+     * reaplica ao se reconstruir
+     *
+     * @param eventos Alteracoes confirmadas, publicadas pelo PaisService
+     **/
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void registrar(PaisesAlteradosEvent eventos) {
+        if (pendentes != null) {
+            pendentes.addAll(eventos.getAlteracoes());
+        }
+    }
+
+    // Lido por cada indice sob o seu lock, no momento em que se troca
+    private synchronized PaisesAlteradosEvent getPendentes() {
+        return new PaisesAlteradosEvent(new ArrayList<PaisAlteradoEvent>(pendentes));
+    }
+
+}
@@ -0,0 +1,176 @@
+package com.gasparcossa.springbootapiproject.index;
+
+import com.gasparcossa.springbootapiproject.event.PaisAlteradoEvent;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copia imutavel de todos paises com um indice de hash por atributo e um indice
+ * ordenado pela area. Nunca e alterada depois de criada: cada escrita gera um
+ * snapshot novo, por isso pode ser lida por varias threads sem lock.
+ *
+ * Os paises guardados sao copias desanexadas e nao devem ser alterados por
+ * quem os le
+ */
+public final class PaisSnapshot {
+
+    private final long criadoEm;
+    private final List<Pais> porId;
+    private final long[] ids;
+    private final Map<Long, Pais> indiceId;
+    private final Map<String, Map<String, List<Pais>>> indicesTexto;
+    private final Pais[] porArea;
+    private final double[] areas;
+
+    private PaisSnapshot(Collection<Pais> paises, long criadoEm) {
+        this.criadoEm = criadoEm;
+
+        List<Pais> ordenados = new ArrayList<Pais>(paises);
+        ordenados.sort(Comparator.comparingLong(Pais::getId));
+        this.porId = Collections.unmodifiableList(ordenados);
+        this.ids = new long[ordenados.size()];
+        Map<Long, Pais> indiceId = new HashMap<Long, Pais>();
+        for (int i = 0; i < ordenados.size(); i++) {
+            ids[i] = ordenados.get(i).getId();
+            indiceId.put(ids[i], ordenados.get(i));
+        }
+        this.indiceId = indiceId;
+
+        Map<String, Map<String, List<Pais>>> indicesTexto = new HashMap<String, Map<String, List<Pais>>>();
+        indicesTexto.put("nome", new HashMap<String, List<Pais>>());
+        indicesTexto.put("capital", new HashMap<String, List<Pais>>());
+        indicesTexto.put("regiao", new HashMap<String, List<Pais>>());
+        indicesTexto.put("subRegiao", new HashMap<String, List<Pais>>());
+        for (Pais pais : ordenados) {
+            indexar(indicesTexto.get("nome"), pais.getNome(), pais);
+            indexar(indicesTexto.get("capital"), pais.getCapital(), pais);
+            indexar(indicesTexto.get("regiao"), pais.getRegiao(), pais);
+            indexar(indicesTexto.get("subRegiao"), pais.getSubRegiao(), pais);
+        }
+        // As listas saem daqui para quem le o snapshot, que nao pode altera-las
+        for (Map<String, List<Pais>> indice : indicesTexto.values()) {
+            indice.replaceAll((valor, lista) -> Collections.unmodifiableList(lista));
+        }
+        this.indicesTexto = indicesTexto;
+
+        this.porArea = ordenados.toArray(new Pais[0]);
+        Arrays.sort(porArea, Comparator.comparingDouble(Pais::getArea).thenComparingLong(Pais::getId));
+        this.areas = new double[porArea.length];
+        for (int i = 0; i < porArea.length; i++) {
+            areas[i] = porArea[i].getArea();
+        }
+    }
+
+    /**
+     * Cria um snapshot com os paises informados
+     * 
+     * @param paises Todos paises da Base de dados
+     * @return O snapshot
+     **/
+    public static PaisSnapshot de(Collection<Pais> paises) {
+        List<Pais> copias = new ArrayList<Pais>(paises.size());
+        for (Pais pais : paises) {
+            copias.add(pais.copiar());
+        }
+        return new PaisSnapshot(copias, System.currentTimeMillis());
+    }
+
+    /**
+     * Cria um snapshot novo com as alteracoes aplicadas, mantendo o momento em
+     * que este foi lido da Base de dados. Os indices sao refeitos uma so vez,
+     * qualquer que seja a quantidade de alteracoes
+     * 
+     * @param alteracoes Alteracoes confirmadas, na ordem em que foram feitas
+     * @return O snapshot novo
+     **/
+    public PaisSnapshot com(List<PaisAlteradoEvent> alteracoes) {
+        Map<Long, Pais> paises = new LinkedHashMap<Long, Pais>(indiceId);
+        for (PaisAlteradoEvent evento : alteracoes) {
+            if (evento.getPais() == null) {
+                paises.remove(evento.getId());
+            } else {
+                paises.put(evento.getId(), evento.getPais().copiar());
+            }
+        }
+        return new PaisSnapshot(paises.values(), criadoEm);
+    }
+
+    public long getCriadoEm() {
+        return criadoEm;
+    }
+
+    public int getTamanho() {
+        return porId.size();
+    }
+
+    public List<Pais> getTodos() {
+        return porId;
+    }
+
+    public Pais getPorId(long id) {
+        return indiceId.get(id);
+    }
+
+    /**
+     * @param atributo nome, capital, regiao ou subRegiao
+     * @param valor    Valor procurado
+     * @return Os paises com o valor no atributo, ou uma lista vazia
+     **/
+    public List<Pais> getPorAtributo(String atributo, String valor) {
+        List<Pais> paises = indicesTexto.get(atributo).get(valor);
+        return paises == null ? Collections.<Pais>emptyList() : paises;
+    }
+
+    /**
+     * Os paises com a area exatamente igual a informada, pela busca binaria no
+     * indice ordenado
+     **/
+    public List<Pais> getPorArea(double area) {
+        int inicio = primeiraPosicao(area);
+        int fim = inicio;
+        while (fim < areas.length && Double.compare(areas[fim], area) == 0) {
+            fim++;
+        }
+        return Collections.unmodifiableList(Arrays.asList(porArea).subList(inicio, fim));
+    }
+
+    /**
+     * Os paises com id maior que o cursor, em ordem de id
+     * 
+     * @param after  Id do ultimo pais da pagina anterior
+     * @param limite Quantidade maxima de paises
+     **/
+    public List<Pais> getPaginaDepois(long after, int limite) {
+        int inicio = Arrays.binarySearch(ids, after);
+        inicio = inicio >= 0 ? inicio + 1 : -inicio - 1;
+        return porId.subList(inicio, Math.min(porId.size(), inicio + limite));
+    }
+
+    // Primeira posicao com area maior ou igual a informada
+    private int primeiraPosicao(double area) {
+        int baixo = 0;
+        int alto = areas.length;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (Double.compare(areas[meio], area) < 0) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    private static void indexar(Map<String, List<Pais>> indice, String valor, Pais pais) {
+        indice.computeIfAbsent(valor, v -> new ArrayList<Pais>()).add(pais);
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.gasparcossa.springbootapiproject.limiter;
+
+/**
+ * Classes de endpoints com limites de concorrencia separados, para um lote
+ * pesado nao tirar lugar as leituras
+ */
+public enum ClasseDeEndpoint {
+    LEITURA, ESCRITA, LOTE
+}
@@ -0,0 +1,80 @@
+package com.gasparcossa.springbootapiproject.limiter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limite de pedidos simultaneos ajustado pela latencia observada (AIMD). Cada
+ * pedido rapido com o limite em uso sobe o limite em 1/limite, cerca de +1 por
+ * janela de pedidos. Um pedido mais lento que o limiar, ou que falhou por
+ * sobrecarga, multiplica o limite pelo fator de reducao, no maximo uma vez por
+ * janela de latencia
+ */
+public class LimitadorAimd {
+
+    private final int minimo;
+    private final int maximo;
+    private final long limiarNanos;
+    private final double fatorDeReducao;
+
+    private double limite;
+    private int emUso;
+    private long ultimaReducao;
+    private long rejeitados;
+
+    public LimitadorAimd(int inicial, int minimo, int maximo, long limiarMs, double fatorDeReducao) {
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.limiarNanos = TimeUnit.MILLISECONDS.toNanos(limiarMs);
+        this.fatorDeReducao = fatorDeReducao;
+        this.limite = Math.max(minimo, Math.min(maximo, inicial));
+        this.ultimaReducao = System.nanoTime() - TimeUnit.HOURS.toNanos(1);
+    }
+
+    /**
+     * Ocupa um lugar se o limite ainda nao foi atingido
+     * 
+     * @return true se o pedido pode seguir, false se deve ser rejeitado
+     **/
+    public synchronized boolean adquirir() {
+        if (emUso >= (int) limite) {
+            rejeitados++;
+            return false;
+        }
+        emUso++;
+        return true;
+    }
+
+    /**
+     * Liberta o lugar de um pedido e ajusta o limite pela sua latencia
+     * 
+     * @param nanos      Duracao do pedido
+     * @param sobrecarga Se o pedido falhou por falta de recursos, como um 5xx
+     **/
+    public synchronized void libertar(long nanos, boolean sobrecarga) {
+        int emUsoAntes = emUso;
+        emUso--;
+        if (sobrecarga || nanos > limiarNanos) {
+            long agora = System.nanoTime();
+            if (agora - ultimaReducao > Math.max(nanos, limiarNanos)) {
+                limite = Math.max(minimo, limite * fatorDeReducao);
+                ultimaReducao = agora;
+            }
+        } else if (emUsoAntes * 2 >= limite) {
+            // Com o limite longe de ser usado, a latencia boa nao diz nada sobre ele
+            limite = Math.min(maximo, limite + 1.0 / limite);
+        }
+    }
+
+    public synchronized int getLimite() {
+        return (int) limite;
+    }
+
+    public synchronized int getEmUso() {
+        return emUso;
+    }
+
+    public synchronized long getRejeitados() {
+        return rejeitados;
+    }
+
+}
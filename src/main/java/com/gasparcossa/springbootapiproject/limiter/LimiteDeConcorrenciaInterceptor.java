@@ -0,0 +1,98 @@
+package com.gasparcossa.springbootapiproject.limiter;
+
+import com.gasparcossa.springbootapiproject.exception.SobrecargaException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Aplica os limites de concorrencia aos endpoints. Um pedido acima do limite da
+ * sua classe e rejeitado logo com 503 em vez de esperar por uma thread ou uma
+ * conexao. As respostas assincronas, como o /export, ficam com o lugar ate
+ * terminarem
+ */
+@Component
+public class LimiteDeConcorrenciaInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String LUGAR = LimiteDeConcorrenciaInterceptor.class.getName() + ".LUGAR";
+
+    // Endpoints que processam muitos paises num unico pedido
+    private static final Set<String> LOTES = new HashSet<String>(Arrays.asList("/saveBatch", "/export"));
+
+    // Conexoes longas que nao ocupam a Base de dados, como o feed do /changes
+    private static final Set<String> EXCLUIDOS = new HashSet<String>(Arrays.asList("/changes"));
+
+    // Leituras que tambem aceitam POST, para listas grandes no corpo
+    private static final Set<String> LEITURAS_POR_POST = new HashSet<String>(Arrays.asList("/readByIds"));
+
+    @Autowired
+    private LimitesDeConcorrencia limites;
+
+    @Value("${pais.limite.ativo:true}")
+    private boolean ativo;
+
+    @Value("${pais.limite.retry-after-segundos:1}")
+    private long retryAfterSegundos;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // O dispatch que termina uma resposta assincrona ja tem o seu lugar
+        if (!ativo || !(handler instanceof HandlerMethod) || request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (padrao != null && EXCLUIDOS.contains(padrao.toString())) {
+            return true;
+        }
+        ClasseDeEndpoint classe = classificar(request);
+        if (!limites.get(classe).adquirir()) {
+            throw new SobrecargaException(classe.name().toLowerCase(), retryAfterSegundos);
+        }
+        request.setAttribute(LUGAR, new Lugar(classe, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        Lugar lugar = (Lugar) request.getAttribute(LUGAR);
+        if (lugar != null) {
+            request.removeAttribute(LUGAR);
+            boolean sobrecarga = ex != null || response.getStatus() >= 500;
+            limites.get(lugar.classe).libertar(System.nanoTime() - lugar.inicio, sobrecarga);
+        }
+    }
+
+    private static ClasseDeEndpoint classificar(HttpServletRequest request) {
+        Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (padrao != null && LOTES.contains(padrao.toString())) {
+            return ClasseDeEndpoint.LOTE;
+        }
+        if (padrao != null && LEITURAS_POR_POST.contains(padrao.toString())) {
+            return ClasseDeEndpoint.LEITURA;
+        }
+        return request.getMethod().equals("GET") || request.getMethod().equals("HEAD") ? ClasseDeEndpoint.LEITURA
+                : ClasseDeEndpoint.ESCRITA;
+    }
+
+    private static class Lugar {
+
+        private final ClasseDeEndpoint classe;
+        private final long inicio;
+
+        Lugar(ClasseDeEndpoint classe, long inicio) {
+            this.classe = classe;
+            this.inicio = inicio;
+        }
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.gasparcossa.springbootapiproject.limiter;
+
+import java.util.EnumMap;
+import java.util.Map;
+import javax.annotation.PostConstruct;
+import org.springframework.core.env.Environment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Um LimitadorAimd por classe de endpoints, configurados pelas propriedades
+ * pais.limite.{leitura,escrita,lote}.*
+ */
+@Component
+public class LimitesDeConcorrencia {
+
+    @Autowired
+    private Environment environment;
+
+    private final Map<ClasseDeEndpoint, LimitadorAimd> limitadores = new EnumMap<ClasseDeEndpoint, LimitadorAimd>(
+            ClasseDeEndpoint.class);
+
+    @PostConstruct
+    public void iniciar() {
+        limitadores.put(ClasseDeEndpoint.LEITURA, criar("leitura", 50, 4, 400, 200));
+        limitadores.put(ClasseDeEndpoint.ESCRITA, criar("escrita", 20, 2, 100, 500));
+        limitadores.put(ClasseDeEndpoint.LOTE, criar("lote", 2, 1, 8, 30000));
+    }
+
+    public LimitadorAimd get(ClasseDeEndpoint classe) {
+        return limitadores.get(classe);
+    }
+
+    private LimitadorAimd criar(String classe, int inicial, int minimo, int maximo, long latenciaMs) {
+        String prefixo = "pais.limite." + classe + ".";
+        return new LimitadorAimd(
+                environment.getProperty(prefixo + "inicial", Integer.class, inicial),
+                environment.getProperty(prefixo + "minimo", Integer.class, minimo),
+                environment.getProperty(prefixo + "maximo", Integer.class, maximo),
+                environment.getProperty(prefixo + "latencia-ms", Long.class, latenciaMs),
+                environment.getProperty("pais.limite.fator-reducao", Double.class, 0.9));
+    }
+
+}
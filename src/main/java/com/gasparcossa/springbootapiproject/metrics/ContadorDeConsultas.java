@@ -0,0 +1,96 @@
+package com.gasparcossa.springbootapiproject.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+
+/**
+ * Conta os statements SQL executados na thread de cada pedido e quantas vezes
+ * cada um se repetiu. E alimentado pelo DataSourceComRegistoPostProcessor e so
+ * conta entre iniciar e terminar
+ */
+@Component
+public class ContadorDeConsultas {
+
+    // Statements distintos guardados por pedido, para um pedido enorme nao
+    // crescer sem limite
+    private static final int MAXIMO_DE_STATEMENTS_DISTINTOS = 64;
+
+    private static final ThreadLocal<Pedido> PEDIDO = new ThreadLocal<Pedido>();
+
+    /**
+     * Comeca a contar os statements da thread atual
+     * 
+     * @param endpoint Metodo do controller que atende o pedido
+     **/
+    public void iniciar(String endpoint) {
+        PEDIDO.set(new Pedido(endpoint));
+    }
+
+    /**
+     * Conta um statement executado na thread atual, se estiver a contar
+     * 
+     * @param sql SQL do statement
+     **/
+    public void registar(String sql) {
+        Pedido pedido = PEDIDO.get();
+        if (pedido == null) {
+            return;
+        }
+        pedido.statements++;
+        Integer repeticoes = pedido.repeticoes.get(sql);
+        if (repeticoes != null) {
+            pedido.repeticoes.put(sql, repeticoes + 1);
+        } else if (pedido.repeticoes.size() < MAXIMO_DE_STATEMENTS_DISTINTOS) {
+            pedido.repeticoes.put(sql, 1);
+        }
+    }
+
+    /**
+     * Endpoint do pedido da thread atual
+     * 
+     * @return Metodo do controller, ou null fora de um pedido
+     **/
+    public String getEndpoint() {
+        Pedido pedido = PEDIDO.get();
+        return pedido == null ? null : pedido.endpoint;
+    }
+
+    /**
+     * Para de contar os statements da thread atual
+     * 
+     * @return O pedido com os statements contados, ou null se nao estava a contar
+     **/
+    public Pedido terminar() {
+        Pedido pedido = PEDIDO.get();
+        PEDIDO.remove();
+        return pedido;
+    }
+
+    public static class Pedido {
+
+        private final String endpoint;
+        private int statements;
+        private final Map<String, Integer> repeticoes = new HashMap<String, Integer>();
+
+        Pedido(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        /**
+         * @return Quantas vezes cada SQL foi executado no pedido
+         **/
+        public Map<String, Integer> getRepeticoes() {
+            return repeticoes;
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.gasparcossa.springbootapiproject.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Envolve os DataSources num proxy que mede cada statement executado, guarda os
+ * seus parametros e os passa ao RegistoDeSql e ao ContadorDeConsultas. O
+ * registo e o log sao feitos fora da thread do pedido
+ */
+@Component
+public class DataSourceComRegistoPostProcessor implements BeanPostProcessor {
+
+    // Obtidos so no primeiro statement, o post processor e criado antes deles
+    @Autowired
+    private ObjectProvider<RegistoDeSql> registoDeSql;
+
+    @Autowired
+    private ObjectProvider<ContadorDeConsultas> contadorDeConsultas;
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        // Os DataSources que so encaminham para outros nao sao envolvidos, senao
+        // cada statement seria registado uma vez por camada
+        if (bean instanceof DataSource && !(bean instanceof DelegatingDataSource)
+                && !(bean instanceof AbstractRoutingDataSource) && !(Proxy.isProxyClass(bean.getClass())
+                        && Proxy.getInvocationHandler(bean) instanceof Delegacao)) {
+            // Com todas as interfaces do original o Closeable do Hikari continua a
+            // fechar o pool quando o contexto termina
+            return Proxy.newProxyInstance(bean.getClass().getClassLoader(),
+                    ClassUtils.getAllInterfaces(bean), new DataSourceComRegisto((DataSource) bean));
+        }
+        return bean;
+    }
+
+    private static Object proxy(Class<?> tipo, Object alvo, Delegacao delegacao) {
+        return Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[] { tipo }, delegacao);
+    }
+
+    /**
+     * Chama o metodo no objecto original. O unwrap e o isWrapperFor tambem sao
+     * delegados, assim o Spring Boot ainda encontra o pool do Hikari para as
+     * metricas
+     **/
+    private abstract static class Delegacao implements InvocationHandler {
+
+        final Object alvo;
+
+        Delegacao(Object alvo) {
+            this.alvo = alvo;
+        }
+
+        Object delegar(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(alvo, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+
+    private class DataSourceComRegisto extends Delegacao {
+
+        DataSourceComRegisto(DataSource alvo) {
+            super(alvo);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object resultado = delegar(method, args);
+            if (method.getName().equals("getConnection")) {
+                return proxy(Connection.class, resultado, new ConexaoComRegisto((Connection) resultado));
+            }
+            return resultado;
+        }
+    }
+
+    private class ConexaoComRegisto extends Delegacao {
+
+        ConexaoComRegisto(Connection alvo) {
+            super(alvo);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object resultado = delegar(method, args);
+            switch (method.getName()) {
+            case "prepareStatement":
+                return proxy(PreparedStatement.class, resultado, new StatementComRegisto(resultado, (String) args[0]));
+            case "prepareCall":
+                return proxy(CallableStatement.class, resultado, new StatementComRegisto(resultado, (String) args[0]));
+            case "createStatement":
+                return proxy(Statement.class, resultado, new StatementComRegisto(resultado, null));
+            default:
+                return resultado;
+            }
+        }
+    }
+
+    private class StatementComRegisto extends Delegacao {
+
+        private final String sql;
+
+        // Parametros da proxima execucao, pela posicao
+        private final Map<Integer, Object> parametros = new TreeMap<Integer, Object>();
+
+        private int lote;
+
+        StatementComRegisto(Object alvo, String sql) {
+            super(alvo);
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nome = method.getName();
+            if (nome.startsWith("execute")) {
+                return executar(method, args);
+            }
+            if (nome.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parametros.put((Integer) args[0], nome.equals("setNull") ? null : args[1]);
+            } else if (nome.equals("clearParameters")) {
+                parametros.clear();
+            } else if (nome.equals("addBatch")) {
+                lote++;
+            } else if (nome.equals("clearBatch")) {
+                lote = 0;
+            }
+            return delegar(method, args);
+        }
+
+        private Object executar(Method method, Object[] args) throws Throwable {
+            String executado = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+            long inicio = System.nanoTime();
+            boolean sucesso = false;
+            try {
+                Object resultado = delegar(method, args);
+                sucesso = true;
+                return resultado;
+            } finally {
+                long duracao = System.nanoTime() - inicio;
+                ContadorDeConsultas contador = contadorDeConsultas.getObject();
+                contador.registar(executado);
+                registoDeSql.getObject().registar(executado, parametros, lote, duracao, sucesso,
+                        contador.getEndpoint());
+                lote = 0;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.gasparcossa.springbootapiproject.metrics;
+
+import com.gasparcossa.springbootapiproject.exception.RecursoNaoEncontradoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BindException;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Conta os recursos nao encontrados e as falhas de validacao. Fica antes dos
+ * outros resolvers e nunca trata a excessao, so a observa
+ */
+@Component
+public class ErrosObservadosResolver implements HandlerExceptionResolver {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private Counter naoEncontrados;
+    private Counter validacoes;
+
+    @PostConstruct
+    public void registar() {
+        naoEncontrados = Counter.builder("pais.erros")
+                .description("Pedidos que terminaram com esta excessao")
+                .tag("tipo", "recurso_nao_encontrado")
+                .register(registry);
+        validacoes = Counter.builder("pais.erros")
+                .description("Pedidos que terminaram com esta excessao")
+                .tag("tipo", "validacao")
+                .register(registry);
+    }
+
+    @Override
+    public ModelAndView resolveException(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        if (ex instanceof RecursoNaoEncontradoException) {
+            naoEncontrados.increment();
+        } else if (ex instanceof MethodArgumentNotValidException || ex instanceof BindException
+                || ex instanceof ConstraintViolationException) {
+            validacoes.increment();
+        }
+        return null;
+    }
+
+}
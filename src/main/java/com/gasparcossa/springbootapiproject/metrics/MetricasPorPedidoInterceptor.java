@@ -0,0 +1,69 @@
+package com.gasparcossa.springbootapiproject.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Regista em pais.pedido.consultas quantos statements SQL cada pedido a um
+ * endpoint executou e passa cada pedido ao RegistoDeSql, que assinala os que
+ * passaram do orcamento ou repetiram um SQL
+ */
+@Component
+public class MetricasPorPedidoInterceptor implements AsyncHandlerInterceptor {
+
+    @Autowired
+    private ContadorDeConsultas contadorDeConsultas;
+
+    @Autowired
+    private RegistoDeSql registoDeSql;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final Map<Method, DistributionSummary> consultasPorEndpoint = new ConcurrentHashMap<Method, DistributionSummary>();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod handlerMethod = (HandlerMethod) handler;
+            contadorDeConsultas.iniciar(
+                    handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        ContadorDeConsultas.Pedido pedido = contadorDeConsultas.terminar();
+        if (pedido != null && handler instanceof HandlerMethod) {
+            consultasPorEndpoint.computeIfAbsent(((HandlerMethod) handler).getMethod(), this::resumo)
+                    .record(pedido.getStatements());
+            registoDeSql.verificarOrcamento(pedido);
+        }
+    }
+
+    // As respostas assincronas terminam noutra thread, onde nada foi contado
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        contadorDeConsultas.terminar();
+    }
+
+    private DistributionSummary resumo(Method metodo) {
+        return DistributionSummary.builder("pais.pedido.consultas")
+                .description("Statements SQL executados por pedido")
+                .tag("endpoint", metodo.getName())
+                .register(registry);
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.gasparcossa.springbootapiproject.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mede a duracao de cada metodo do PaisService no timer pais.service, com o
+ * metodo e a excessao lancada como tags. As consultas do PaisRepository e os
+ * endpoints ja sao medidos pelo Spring Boot em spring.data.repository.invocations
+ * e http.server.requests
+ */
+@Aspect
+@Component
+public class PaisServiceMetricasAspect {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    // Timers dos metodos que terminaram sem excessao, para nao montar as tags em
+    // cada chamada
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<Method, Timer>();
+
+    @Around("execution(* com.gasparcossa.springbootapiproject.service.PaisService.*(..))")
+    public Object medir(ProceedingJoinPoint joinPoint) throws Throwable {
+        long inicio = System.nanoTime();
+        Method metodo = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        try {
+            Object resultado = joinPoint.proceed();
+            timers.computeIfAbsent(metodo, m -> timer(m, "nenhuma")).record(System.nanoTime() - inicio,
+                    TimeUnit.NANOSECONDS);
+            return resultado;
+        } catch (Throwable ex) {
+            timer(metodo, ex.getClass().getSimpleName()).record(System.nanoTime() - inicio,
+                    TimeUnit.NANOSECONDS);
+            throw ex;
+        }
+    }
+
+    private Timer timer(Method metodo, String excecao) {
+        return Timer.builder("pais.service")
+                .description("Duracao dos metodos do PaisService")
+                .tag("metodo", metodo.getName())
+                .tag("excecao", excecao)
+                .register(registry);
+    }
+
+}
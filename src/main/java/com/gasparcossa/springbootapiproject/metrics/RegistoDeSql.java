@@ -0,0 +1,312 @@
+package com.gasparcossa.springbootapiproject.metrics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Log de SQL que substitui o spring.jpa.show-sql. Na thread do pedido so
+ * atualiza os agregados de cada statement e, para os statements lentos, uma
+ * amostra dos outros e os pedidos acima do orcamento ou com um SQL repetido, poe
+ * um evento numa fila.
+ * Uma thread propria escreve os eventos como JSON no logger pais.sql. Com a fila
+ * cheia os eventos sao descartados e contados
+ */
+@Component
+public class RegistoDeSql {
+
+    private static final Logger LOG = LoggerFactory.getLogger("pais.sql");
+
+    // Statements distintos com agregados. A partir dai os novos entram em OUTROS
+    private static final int MAXIMO_DE_STATEMENTS = 500;
+    private static final String OUTROS = "(outros)";
+
+    private static final int MAXIMO_DE_PEDIDOS_RECENTES = 50;
+    private static final int TAMANHO_MAXIMO_DE_PARAMETRO = 100;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${pais.sql-log.limiar-ms:100}")
+    private long limiarMs;
+
+    @Value("${pais.sql-log.amostragem:0.001}")
+    private double amostragem;
+
+    @Value("${pais.sql-log.orcamento-por-pedido:10}")
+    private int orcamentoPorPedido;
+
+    // Execucoes do mesmo SQL num pedido a partir das quais ele e assinalado,
+    // qualquer que seja o orcamento
+    @Value("${pais.sql-log.repeticoes-por-pedido:2}")
+    private int repeticoesPorPedido;
+
+    @Value("${pais.sql-log.tamanho-fila:10000}")
+    private int tamanhoFila;
+
+    private final Map<String, Agregado> agregados = new ConcurrentHashMap<String, Agregado>();
+    private final Map<String, LongAdder> pedidosAcimaDoOrcamento = new ConcurrentHashMap<String, LongAdder>();
+    private final Deque<Map<String, Object>> pedidosRecentes = new ArrayDeque<Map<String, Object>>();
+
+    private final AtomicLong lentos = new AtomicLong();
+    private final AtomicLong amostrados = new AtomicLong();
+    private final AtomicLong descartados = new AtomicLong();
+
+    private BlockingQueue<Map<String, Object>> fila;
+    private Thread escritor;
+
+    @PostConstruct
+    public void iniciar() {
+        fila = new ArrayBlockingQueue<Map<String, Object>>(tamanhoFila);
+        escritor = new Thread(this::escrever, "pais-sql-log");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    @PreDestroy
+    public void parar() {
+        escritor.interrupt();
+    }
+
+    /**
+     * Regista a execucao de um statement
+     * 
+     * @param sql        SQL executado
+     * @param parametros Parametros pela posicao, copiados so se o evento for
+     *                   escrito
+     * @param lote       Linhas do batch, 0 fora de um batch
+     * @param nanos      Duracao da execucao
+     * @param sucesso    Se a execucao terminou sem excessao
+     * @param endpoint   Metodo do controller que originou o statement, ou null
+     **/
+    public void registar(String sql, Map<Integer, Object> parametros, int lote, long nanos, boolean sucesso,
+            String endpoint) {
+        agregado(sql).registar(nanos, sucesso);
+
+        boolean lento = nanos >= TimeUnit.MILLISECONDS.toNanos(limiarMs);
+        if (lento) {
+            lentos.incrementAndGet();
+        } else if (ThreadLocalRandom.current().nextDouble() < amostragem) {
+            amostrados.incrementAndGet();
+        } else {
+            return;
+        }
+        Map<String, Object> evento = new LinkedHashMap<String, Object>();
+        evento.put("tipo", lento ? "lento" : "amostra");
+        evento.put("duracaoMs", nanos / 1e6);
+        evento.put("sucesso", sucesso);
+        evento.put("endpoint", endpoint);
+        evento.put("sql", sql);
+        evento.put("parametros", parametros(parametros));
+        if (lote > 0) {
+            evento.put("lote", lote);
+        }
+        enfileirar(evento);
+    }
+
+    /**
+     * Assinala o pedido se executou mais statements que o orcamento ou o mesmo
+     * SQL mais de uma vez. Statements repetidos no mesmo pedido costumam ser um
+     * N+1 ou uma verificacao seguida da mesma consulta, mesmo quando o pedido
+     * fica dentro do orcamento
+     * 
+     * @param pedido Statements contados durante o pedido
+     **/
+    public void verificarOrcamento(ContadorDeConsultas.Pedido pedido) {
+        boolean acimaDoOrcamento = pedido.getStatements() > orcamentoPorPedido;
+        if (!acimaDoOrcamento && maisRepetido(pedido.getRepeticoes()) < repeticoesPorPedido) {
+            return;
+        }
+        pedidosAcimaDoOrcamento.computeIfAbsent(String.valueOf(pedido.getEndpoint()), e -> new LongAdder())
+                .increment();
+
+        Map<String, Object> evento = new LinkedHashMap<String, Object>();
+        evento.put("tipo", acimaDoOrcamento ? "orcamento" : "repeticao");
+        evento.put("endpoint", pedido.getEndpoint());
+        evento.put("statements", pedido.getStatements());
+        evento.put("orcamento", orcamentoPorPedido);
+        evento.put("repetidos", repetidos(pedido.getRepeticoes()));
+        synchronized (pedidosRecentes) {
+            if (pedidosRecentes.size() == MAXIMO_DE_PEDIDOS_RECENTES) {
+                pedidosRecentes.removeFirst();
+            }
+            pedidosRecentes.addLast(evento);
+        }
+        enfileirar(evento);
+    }
+
+    /**
+     * Agregados para o endpoint /actuator/sqllog
+     * 
+     * @return Totais, os statements com mais tempo acumulado e os ultimos pedidos
+     *         acima do orcamento
+     **/
+    public Map<String, Object> getResumo() {
+        List<Map.Entry<String, Agregado>> ordenados = new ArrayList<Map.Entry<String, Agregado>>(
+                agregados.entrySet());
+        ordenados.sort(Comparator.comparingLong(
+                (Map.Entry<String, Agregado> e) -> e.getValue().nanos.sum()).reversed());
+        List<Map<String, Object>> statements = new ArrayList<Map<String, Object>>();
+        for (Map.Entry<String, Agregado> entrada : ordenados) {
+            statements.add(entrada.getValue().resumo(entrada.getKey()));
+        }
+
+        Map<String, Long> acimaDoOrcamento = new LinkedHashMap<String, Long>();
+        for (Map.Entry<String, LongAdder> entrada : pedidosAcimaDoOrcamento.entrySet()) {
+            acimaDoOrcamento.put(entrada.getKey(), entrada.getValue().sum());
+        }
+
+        Map<String, Object> configuracao = new LinkedHashMap<String, Object>();
+        configuracao.put("limiarMs", limiarMs);
+        configuracao.put("amostragem", amostragem);
+        configuracao.put("orcamentoPorPedido", orcamentoPorPedido);
+        configuracao.put("repeticoesPorPedido", repeticoesPorPedido);
+
+        Map<String, Object> resumo = new LinkedHashMap<String, Object>();
+        resumo.put("configuracao", configuracao);
+        resumo.put("lentos", lentos.get());
+        resumo.put("amostrados", amostrados.get());
+        resumo.put("descartados", descartados.get());
+        resumo.put("pedidosAcimaDoOrcamento", acimaDoOrcamento);
+        synchronized (pedidosRecentes) {
+            resumo.put("pedidosRecentesAcimaDoOrcamento", new ArrayList<Map<String, Object>>(pedidosRecentes));
+        }
+        resumo.put("statements", statements);
+        return resumo;
+    }
+
+    /**
+     * Zera os agregados e os contadores
+     **/
+    public void limpar() {
+        agregados.clear();
+        pedidosAcimaDoOrcamento.clear();
+        synchronized (pedidosRecentes) {
+            pedidosRecentes.clear();
+        }
+        lentos.set(0);
+        amostrados.set(0);
+        descartados.set(0);
+    }
+
+    private Agregado agregado(String sql) {
+        Agregado agregado = agregados.get(sql);
+        if (agregado != null) {
+            return agregado;
+        }
+        if (agregados.size() >= MAXIMO_DE_STATEMENTS) {
+            return agregados.computeIfAbsent(OUTROS, s -> new Agregado());
+        }
+        return agregados.computeIfAbsent(sql, s -> new Agregado());
+    }
+
+    private void enfileirar(Map<String, Object> evento) {
+        if (!fila.offer(evento)) {
+            descartados.incrementAndGet();
+        }
+    }
+
+    private void escrever() {
+        try {
+            while (true) {
+                Map<String, Object> evento = fila.take();
+                String json;
+                try {
+                    json = objectMapper.writeValueAsString(evento);
+                } catch (JsonProcessingException ex) {
+                    json = evento.toString();
+                }
+                if ("amostra".equals(evento.get("tipo"))) {
+                    LOG.info(json);
+                } else {
+                    LOG.warn(json);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static List<String> parametros(Map<Integer, Object> parametros) {
+        List<String> copia = new ArrayList<String>(parametros.size());
+        for (Object valor : parametros.values()) {
+            String texto = String.valueOf(valor);
+            copia.add(texto.length() > TAMANHO_MAXIMO_DE_PARAMETRO
+                    ? texto.substring(0, TAMANHO_MAXIMO_DE_PARAMETRO) + "..."
+                    : texto);
+        }
+        return copia;
+    }
+
+    private static int maisRepetido(Map<String, Integer> repeticoes) {
+        int maximo = 0;
+        for (int vezes : repeticoes.values()) {
+            maximo = Math.max(maximo, vezes);
+        }
+        return maximo;
+    }
+
+    private static Map<String, Integer> repetidos(Map<String, Integer> repeticoes) {
+        List<Map.Entry<String, Integer>> ordenados = new ArrayList<Map.Entry<String, Integer>>(
+                repeticoes.entrySet());
+        ordenados.sort(Collections.reverseOrder(Map.Entry.comparingByValue()));
+        Map<String, Integer> repetidos = new LinkedHashMap<String, Integer>();
+        for (Map.Entry<String, Integer> entrada : ordenados.subList(0, Math.min(5, ordenados.size()))) {
+            repetidos.put(entrada.getKey(), entrada.getValue());
+        }
+        return repetidos;
+    }
+
+    private static class Agregado {
+
+        private final LongAdder execucoes = new LongAdder();
+        private final LongAdder erros = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final AtomicLong maximo = new AtomicLong();
+
+        void registar(long duracao, boolean sucesso) {
+            execucoes.increment();
+            nanos.add(duracao);
+            if (!sucesso) {
+                erros.increment();
+            }
+            long atual;
+            while (duracao > (atual = maximo.get()) && !maximo.compareAndSet(atual, duracao)) {
+            }
+        }
+
+        Map<String, Object> resumo(String sql) {
+            long total = execucoes.sum();
+            Map<String, Object> resumo = new LinkedHashMap<String, Object>();
+            resumo.put("sql", sql);
+            resumo.put("execucoes", total);
+            resumo.put("erros", erros.sum());
+            resumo.put("totalMs", nanos.sum() / 1e6);
+            resumo.put("mediaMs", total == 0 ? 0 : nanos.sum() / 1e6 / total);
+            resumo.put("maximoMs", maximo.get() / 1e6);
+            return resumo;
+        }
+    }
+
+}
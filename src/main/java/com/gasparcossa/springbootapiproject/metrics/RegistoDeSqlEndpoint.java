@@ -0,0 +1,30 @@
+package com.gasparcossa.springbootapiproject.metrics;
+
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Endpoint /actuator/sqllog com os agregados do RegistoDeSql
+ */
+@Component
+@Endpoint(id = "sqllog")
+public class RegistoDeSqlEndpoint {
+
+    @Autowired
+    private RegistoDeSql registoDeSql;
+
+    @ReadOperation
+    public Map<String, Object> resumo() {
+        return registoDeSql.getResumo();
+    }
+
+    @DeleteOperation
+    public void limpar() {
+        registoDeSql.limpar();
+    }
+
+}
@@ -8,18 +8,27 @@ import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Pattern;
 
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 /**
  * Entidade com propriedades do um pais
  */
 @Data
 @Entity
-@Table(name = "pais")
+@Table(name = "pais", uniqueConstraints = @UniqueConstraint(name = "pais_capital_uk", columnNames = "capital"), indexes = {
+        @Index(name = "pais_area_idx", columnList = "area"),
+        @Index(name = "pais_regiao_idx", columnList = "regiao"),
+        @Index(name = "pais_sub_regiao_idx", columnList = "subRegiao") })
 public class Pais {
 
     @Id
-    @GeneratedValue(generator = "increment")
-    @GenericGenerator(name = "increment",strategy ="increment")
+    // A sequencia reserva blocos de ids por no, assim o Hibernate consegue agrupar
+    // os inserts em batches JDBC e varias instancias nao repetem ids
+    @GeneratedValue(generator = "pais_seq")
+    @GenericGenerator(name = "pais_seq", strategy = "com.gasparcossa.springbootapiproject.model.PaisIdGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "pais_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled") })
     private long id;
 
     @Column(name = "nome")
@@ -56,4 +65,25 @@ public class Pais {
     // Medido em km^2, (Quilometros ao quadrado)
     private double area;
 
+    // Incrementada a cada atualizacao, usada para detetar escritas concorrentes
+    @Version
+    @Column(name = "versao", nullable = false, columnDefinition = "bigint default 0")
+    private Long versao;
+
+    /**
+     * Copia desanexada deste pais, para guardar em memoria fora do contexto de
+     * persistencia
+     **/
+    public Pais copiar() {
+        Pais copia = new Pais();
+        copia.setId(id);
+        copia.setNome(nome);
+        copia.setCapital(capital);
+        copia.setRegiao(regiao);
+        copia.setSubRegiao(subRegiao);
+        copia.setArea(area);
+        copia.setVersao(versao);
+        return copia;
+    }
+
 }
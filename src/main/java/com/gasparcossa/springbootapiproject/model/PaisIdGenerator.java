@@ -0,0 +1,31 @@
+package com.gasparcossa.springbootapiproject.model;
+
+import java.util.Properties;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * Gerador de ids do Pais baseado numa sequencia da Base de dados. Cada chamada
+ * a sequencia reserva um bloco inteiro de ids para o no que a fez, por isso
+ * varias instancias da API podem inserir na mesma Base de dados sem repetir ids
+ *
+ * O tamanho do bloco vem da propriedade spring.jpa.properties.pais.id.tamanho-bloco
+ * e deve ser igual ao INCREMENT BY da sequencia pais_seq
+ */
+public class PaisIdGenerator extends SequenceStyleGenerator {
+
+    public static final String TAMANHO_BLOCO = "pais.id.tamanho-bloco";
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Object tamanhoBloco = serviceRegistry.getService(ConfigurationService.class).getSettings().get(TAMANHO_BLOCO);
+        if (tamanhoBloco != null) {
+            params.setProperty(INCREMENT_PARAM, tamanhoBloco.toString());
+        }
+        super.configure(type, params, serviceRegistry);
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.gasparcossa.springbootapiproject.model;
+
+import com.gasparcossa.springbootapiproject.datasource.ContextoDeRoteamento;
+import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verifica no arranque a sequencia pais_seq usada pelo PaisIdGenerator. O
+ * ddl-auto cria a sequencia mas nunca altera uma que ja existe, entao um
+ * INCREMENT BY diferente do tamanho do bloco configurado faria instancias
+ * diferentes receberem blocos de ids sobrepostos. Nesse caso a API nao arranca.
+ *
+ * Numa Base de dados de antes da sequencia, criada a comecar em 1 com a tabela
+ * ja cheia, a sequencia tambem e avancada para depois do maior id
+ */
+@Component
+public class PaisSequencia {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PaisSequencia.class);
+
+    public static final String NOME = "pais_seq";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @PostConstruct
+    public void verificar() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        int tamanhoDoBloco = getTamanhoDoBloco(sessionFactory);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        List<String> incrementos = ContextoDeRoteamento.naPrimaria(() -> jdbcTemplate.queryForList(
+                "select increment from information_schema.sequences where lower(sequence_name) = ?", String.class,
+                NOME));
+        if (incrementos.isEmpty()) {
+            throw new IllegalStateException("A sequencia " + NOME + " nao existe na Base de dados");
+        }
+        for (String incremento : incrementos) {
+            if (Long.parseLong(incremento.trim()) != tamanhoDoBloco) {
+                throw new IllegalStateException(String.format(
+                        "A sequencia %s tem INCREMENT BY %s mas o tamanho do bloco (%s) e %d. Altere a sequencia "
+                                + "com ALTER SEQUENCE %s INCREMENT BY %d ou a propriedade",
+                        NOME, incremento.trim(), "spring.jpa.properties." + PaisIdGenerator.TAMANHO_BLOCO,
+                        tamanhoDoBloco, NOME, tamanhoDoBloco));
+            }
+        }
+        ContextoDeRoteamento.naPrimaria(() -> {
+            avancar(jdbcTemplate, sessionFactory.getJdbcServices().getDialect().getSequenceNextValString(NOME),
+                    tamanhoDoBloco);
+            return null;
+        });
+    }
+
+    /**
+     * Com o valor v da sequencia o gerador usa os ids de v - bloco + 1 ate v, e
+     * os proximos valores sao maiores que v. Entao basta o valor lido agora nao
+     * ser menor que o maior id. Este valor e descartado, o que so deixa um
+     * buraco nos ids
+     **/
+    private static void avancar(JdbcTemplate jdbcTemplate, String proximoValor, int tamanhoDoBloco) {
+        Long maiorId = jdbcTemplate.queryForObject("select max(id) from pais", Long.class);
+        if (maiorId == null) {
+            return;
+        }
+        Long valor = jdbcTemplate.queryForObject(proximoValor, Long.class);
+        if (valor < maiorId) {
+            jdbcTemplate.execute("alter sequence " + NOME + " restart with " + (maiorId + tamanhoDoBloco));
+            LOGGER.info("Sequencia {} avancada para depois do maior id {}", NOME, maiorId);
+        }
+    }
+
+    // O tamanho do bloco que o gerador realmente usa, ja com a propriedade aplicada
+    private static int getTamanhoDoBloco(SessionFactoryImplementor sessionFactory) {
+        SequenceStyleGenerator gerador = (SequenceStyleGenerator) sessionFactory
+                .getIdentifierGenerator(Pais.class.getName());
+        return gerador.getOptimizer().getIncrementSize();
+    }
+
+}
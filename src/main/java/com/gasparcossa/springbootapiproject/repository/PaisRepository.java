@@ -1,10 +1,18 @@
 package com.gasparcossa.springbootapiproject.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import com.gasparcossa.springbootapiproject.model.Pais;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 /**
  * Interface que define operações CRUD e mais em nossa entidade
@@ -13,7 +21,8 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 // Nao precisamos de por a anotacao de @Repository pois o JpaRepository ja
 // implementa essa anotacao internamente
-public interface PaisRepository extends JpaRepository<Pais, Long>, JpaSpecificationExecutor<Pais> {
+public interface PaisRepository
+        extends JpaRepository<Pais, Long>, JpaSpecificationExecutor<Pais>, PaisRepositoryCustom {
 
     /**
      * Ordena uma lista de paises pelo nome
@@ -62,4 +71,164 @@ public interface PaisRepository extends JpaRepository<Pais, Long>, JpaSpecificat
      * @return Um pais || Um nullo
      */
     Optional<Pais> findById(long id);
+
+    /**
+     * Le uma pagina de paises com id maior que o cursor informado. O limite vem
+     * do Pageable, que deve ser sempre a primeira pagina
+     * 
+     * @param id       Id do ultimo pais da pagina anterior
+     * @param pageable Tamanho da pagina
+     * @return Uma lista de paises ordenada pelo id
+     */
+    List<Pais> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+    /**
+     * Le todos paises ordenados pelo id como um Stream, lendo do cursor da Base
+     * de dados aos poucos. Deve ser consumido dentro de uma transacao e fechado
+     * no fim
+     * 
+     * @return Um Stream de paises
+     */
+    @QueryHints({ @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true") })
+    @Query("select p from Pais p order by p.id")
+    Stream<Pais> streamAllByOrderByIdAsc();
+
+    /**
+     * Le os paises com area entre min e max pelo indice da area
+     * 
+     * @param min      Menor area
+     * @param max      Maior area
+     * @param pageable Quantidade maxima de paises
+     * @return Uma lista de paises ordenada pela area
+     */
+    List<Pais> findByAreaBetweenOrderByAreaAscIdAsc(double min, double max, Pageable pageable);
+
+    /**
+     * Le os maiores paises pelo indice da area
+     * 
+     * @param pageable Quantidade de paises
+     * @return Uma lista de paises do maior para o menor
+     */
+    List<Pais> findAllByOrderByAreaDescIdDesc(Pageable pageable);
+
+    /**
+     * Le os menores paises pelo indice da area
+     * 
+     * @param pageable Quantidade de paises
+     * @return Uma lista de paises do menor para o maior
+     */
+    List<Pais> findAllByOrderByAreaAscIdAsc(Pageable pageable);
+
+    /**
+     * Agrupa os paises por regiao. Usado pelo /stats/regiao antes das
+     * estatisticas em memoria serem construidas
+     * 
+     * @return Uma lista de [regiao, quantidade, area total] ordenada pela regiao
+     */
+    @Query("select p.regiao, count(p), sum(p.area) from Pais p group by p.regiao order by p.regiao")
+    List<Object[]> agruparPorRegiao();
+
+    /**
+     * Agrupa os paises por sub-regiao. Usado pelo /stats/subRegiao antes das
+     * estatisticas em memoria serem construidas
+     * 
+     * @return Uma lista de [subRegiao, quantidade, area total] ordenada pela
+     *         sub-regiao
+     */
+    @Query("select p.subRegiao, count(p), sum(p.area) from Pais p group by p.subRegiao order by p.subRegiao")
+    List<Object[]> agruparPorSubRegiao();
+
+    /**
+     * Le os primeiros paises em ordem alfabetica cujo nome comeca com o prefixo,
+     * ignorando maiusculas. Usado pelo autocomplete antes do indice ser
+     * construido
+     * 
+     * @param prefixo  Inicio do nome
+     * @param pageable Quantidade de paises
+     * @return Uma lista de paises ordenada pelo nome
+     */
+    List<Pais> findByNomeStartingWithIgnoreCaseOrderByNomeAsc(String prefixo, Pageable pageable);
+
+    /**
+     * Le os primeiros paises em ordem alfabetica cuja capital comeca com o
+     * prefixo, ignorando maiusculas. Usado pelo autocomplete antes do indice ser
+     * construido
+     * 
+     * @param prefixo  Inicio da capital
+     * @param pageable Quantidade de paises
+     * @return Uma lista de paises ordenada pela capital
+     */
+    List<Pais> findByCapitalStartingWithIgnoreCaseOrderByCapitalAsc(String prefixo, Pageable pageable);
+
+    /**
+     * Atualiza todos atributos de um pais num unico UPDATE, sem le-lo antes
+     * 
+     * @return A quantidade de paises atualizados, 0 se o id nao existe
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Pais p set p.nome = :nome, p.capital = :capital, p.regiao = :regiao, p.subRegiao = :subRegiao, "
+            + "p.area = :area, p.versao = p.versao + 1 where p.id = :id")
+    int updateById(@Param("id") long id, @Param("nome") String nome, @Param("capital") String capital,
+            @Param("regiao") String regiao, @Param("subRegiao") String subRegiao, @Param("area") double area);
+
+    /**
+     * Atualiza todos atributos de um pais num unico UPDATE, somente se ele ainda
+     * estiver na versao informada
+     * 
+     * @return A quantidade de paises atualizados, 0 se o id nao existe ou a
+     *         versao mudou
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Pais p set p.nome = :nome, p.capital = :capital, p.regiao = :regiao, p.subRegiao = :subRegiao, "
+            + "p.area = :area, p.versao = p.versao + 1 where p.id = :id and p.versao = :versao")
+    int updateByIdAndVersao(@Param("id") long id, @Param("versao") long versao, @Param("nome") String nome,
+            @Param("capital") String capital, @Param("regiao") String regiao, @Param("subRegiao") String subRegiao,
+            @Param("area") double area);
+
+    /**
+     * Le so a versao de um pais, sem carrega-lo
+     * 
+     * @param id Atributo do objecto Pais
+     * @return A versao, ou nullo se o id nao existe
+     */
+    @Query("select p.versao from Pais p where p.id = :id")
+    Long findVersaoById(@Param("id") long id);
+
+    /**
+     * Deleta um pais num unico DELETE, sem le-lo antes
+     * 
+     * @param id Atributo do objecto Pais
+     * @return A quantidade de paises deletados, 0 se o id nao existe
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("delete from Pais p where p.id = :id")
+    int deleteByIdReturningCount(@Param("id") long id);
+
+    /**
+     * Verifica pelo indice unico da capital se ja existe um pais com ela
+     * 
+     * @param capital Atributo do objecto Pais
+     * @return true se existe e false se nao
+     */
+    boolean existsByCapital(String capital);
+
+    /**
+     * Verifica pelo indice unico da capital se ja existe outro pais com ela,
+     * ignorando o pais com o id informado
+     * 
+     * @param capital Atributo do objecto Pais
+     * @param id      Id do pais que deve ser ignorado
+     * @return true se existe e false se nao
+     */
+    boolean existsByCapitalAndIdNot(String capital, long id);
+
+    /**
+     * Le, numa unica consulta, quais das capitais informadas ja estao cadastradas
+     * 
+     * @param capitais Capitais a verificar
+     * @return As capitais que ja existem na Base de dados
+     */
+    @Query("select p.capital from Pais p where p.capital in :capitais")
+    List<String> findCapitaisExistentes(@Param("capitais") Collection<String> capitais);
 }
@@ -0,0 +1,48 @@
+package com.gasparcossa.springbootapiproject.repository;
+
+import com.gasparcossa.springbootapiproject.dto.PaisResumo;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import java.util.List;
+import java.util.Map;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Consultas de Pais que nao conseguem ser derivadas do nome do metodo e por
+ * isso sao implementadas a mao em PaisRepositoryCustomImpl
+ */
+public interface PaisRepositoryCustom {
+
+    /**
+     * Le uma pagina de paises com id maior que o cursor, selecionando somente as
+     * colunas requeridas
+     * 
+     * @param after  Id do ultimo pais da pagina anterior
+     * @param limite Quantidade maxima de paises a ler
+     * @param campos Atributos do objecto Pais a selecionar alem do id
+     * @return Lista de mapas campo -> valor ordenada pelo id
+     */
+    List<Map<String, Object>> findPaginaProjetada(long after, int limite, List<String> campos);
+
+    /**
+     * Le uma pagina de resumos dos paises que satisfazem a especificacao, numa
+     * consulta que seleciona direto as colunas do resumo
+     * 
+     * @param especificacao Filtros combinados
+     * @param pageable      Pagina e ordenacao
+     * @return A pagina de resumos
+     */
+    Page<PaisResumo> findResumos(Specification<Pais> especificacao, Pageable pageable);
+
+    /**
+     * Atualiza somente os atributos informados de um pais num unico UPDATE
+     * 
+     * @param id         Id do pais
+     * @param versao     Versao esperada do pais, nullo para nao verificar
+     * @param alteracoes Mapa atributo -> novo valor
+     * @return A quantidade de paises atualizados
+     */
+    int updateParcial(long id, Long versao, Map<String, Object> alteracoes);
+
+}
@@ -0,0 +1,50 @@
+package com.gasparcossa.springbootapiproject.repository;
+
+import com.gasparcossa.springbootapiproject.model.Pais;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Filtros de Pais que podem ser combinados numa unica consulta pelo
+ * JpaSpecificationExecutor. Um filtro com valor nullo nao restringe nada
+ */
+public final class PaisSpecifications {
+
+    private PaisSpecifications() {
+    }
+
+    public static Specification<Pais> regiaoIgual(String regiao) {
+        return (pais, query, cb) -> regiao == null ? null : cb.equal(pais.get("regiao"), regiao);
+    }
+
+    public static Specification<Pais> subRegiaoIgual(String subRegiao) {
+        return (pais, query, cb) -> subRegiao == null ? null : cb.equal(pais.get("subRegiao"), subRegiao);
+    }
+
+    public static Specification<Pais> nomeComecaCom(String prefixo) {
+        return (pais, query, cb) -> prefixo == null ? null
+                : cb.like(pais.get("nome"), escaparLike(prefixo) + "%", '\\');
+    }
+
+    public static Specification<Pais> capitalComecaCom(String prefixo) {
+        return (pais, query, cb) -> prefixo == null ? null
+                : cb.like(pais.get("capital"), escaparLike(prefixo) + "%", '\\');
+    }
+
+    public static Specification<Pais> areaEntre(Double min, Double max) {
+        return (pais, query, cb) -> {
+            if (min != null && max != null) {
+                return cb.between(pais.<Double>get("area"), min, max);
+            }
+            if (min != null) {
+                return cb.greaterThanOrEqualTo(pais.<Double>get("area"), min);
+            }
+            return max == null ? null : cb.lessThanOrEqualTo(pais.<Double>get("area"), max);
+        };
+    }
+
+    // O _ e aceite nos atributos do Pais e e um curinga do LIKE
+    private static String escaparLike(String valor) {
+        return valor.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+}
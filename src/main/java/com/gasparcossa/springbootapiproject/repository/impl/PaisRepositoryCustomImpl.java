@@ -0,0 +1,143 @@
+package com.gasparcossa.springbootapiproject.repository.impl;
+
+import com.gasparcossa.springbootapiproject.dto.PaisResumo;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import com.gasparcossa.springbootapiproject.repository.PaisRepositoryCustom;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Selection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+/**
+ * Implementacao das consultas de PaisRepositoryCustom. O Spring Data junta essa
+ * classe ao PaisRepository pelo sufixo Impl
+ */
+public class PaisRepositoryCustomImpl implements PaisRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Le uma pagina de paises com id maior que o cursor, selecionando somente as
+     * colunas requeridas
+     * 
+     * @param after  Id do ultimo pais da pagina anterior
+     * @param limite Quantidade maxima de paises a ler
+     * @param campos Atributos do objecto Pais a selecionar alem do id
+     * @return Lista de mapas campo -> valor ordenada pelo id
+     **/
+    @Override
+    public List<Map<String, Object>> findPaginaProjetada(long after, int limite, List<String> campos) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Pais> pais = query.from(Pais.class);
+
+        // O id e sempre selecionado pois e o cursor da proxima pagina, cada alias
+        // so pode aparecer uma vez
+        List<Selection<?>> selecoes = new ArrayList<Selection<?>>();
+        selecoes.add(pais.get("id").alias("id"));
+        for (String campo : new LinkedHashSet<String>(campos)) {
+            if (!campo.equals("id")) {
+                selecoes.add(pais.get(campo).alias(campo));
+            }
+        }
+
+        query.multiselect(selecoes)
+                .where(cb.greaterThan(pais.<Long>get("id"), after))
+                .orderBy(cb.asc(pais.get("id")));
+
+        List<Map<String, Object>> linhas = new ArrayList<Map<String, Object>>();
+        for (Tuple tuple : entityManager.createQuery(query).setMaxResults(limite).getResultList()) {
+            Map<String, Object> linha = new LinkedHashMap<String, Object>();
+            for (Selection<?> selecao : selecoes) {
+                linha.put(selecao.getAlias(), tuple.get(selecao.getAlias()));
+            }
+            linhas.add(linha);
+        }
+        return linhas;
+    }
+
+    /**
+     * Le uma pagina de resumos dos paises que satisfazem a especificacao. A
+     * contagem so e feita quando o tamanho da pagina nao basta para a deduzir
+     * 
+     * @param especificacao Filtros combinados
+     * @param pageable      Pagina e ordenacao
+     * @return A pagina de resumos
+     **/
+    @Override
+    public Page<PaisResumo> findResumos(Specification<Pais> especificacao, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PaisResumo> query = cb.createQuery(PaisResumo.class);
+        Root<Pais> pais = query.from(Pais.class);
+        query.select(cb.construct(PaisResumo.class, pais.get("id"), pais.get("nome"), pais.get("capital"),
+                pais.get("regiao"), pais.get("subRegiao"), pais.get("area")));
+        Predicate filtro = especificacao.toPredicate(pais, query, cb);
+        if (filtro != null) {
+            query.where(filtro);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), pais, cb));
+
+        List<PaisResumo> resumos = entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(pageable.getOffset()))
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        return PageableExecutionUtils.getPage(resumos, pageable, () -> contar(especificacao));
+    }
+
+    /**
+     * Atualiza somente os atributos informados de um pais num unico UPDATE,
+     * incrementando a sua versao
+     * 
+     * @param id         Id do pais
+     * @param versao     Versao esperada do pais, nullo para nao verificar
+     * @param alteracoes Mapa atributo -> novo valor
+     * @return A quantidade de paises atualizados
+     **/
+    @Override
+    public int updateParcial(long id, Long versao, Map<String, Object> alteracoes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Pais> update = cb.createCriteriaUpdate(Pais.class);
+        Root<Pais> pais = update.from(Pais.class);
+        for (Map.Entry<String, Object> alteracao : alteracoes.entrySet()) {
+            update.set(pais.get(alteracao.getKey()), alteracao.getValue());
+        }
+        update.set(pais.<Long>get("versao"), cb.sum(pais.<Long>get("versao"), 1L));
+        Predicate filtro = cb.equal(pais.get("id"), id);
+        if (versao != null) {
+            filtro = cb.and(filtro, cb.equal(pais.get("versao"), versao));
+        }
+        update.where(filtro);
+        int atualizados = entityManager.createQuery(update).executeUpdate();
+        entityManager.clear();
+        return atualizados;
+    }
+
+    private long contar(Specification<Pais> especificacao) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Pais> pais = query.from(Pais.class);
+        query.select(cb.count(pais));
+        Predicate filtro = especificacao.toPredicate(pais, query, cb);
+        if (filtro != null) {
+            query.where(filtro);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+}
@@ -1,7 +1,17 @@
 package com.gasparcossa.springbootapiproject.service;
 
+import com.gasparcossa.springbootapiproject.dto.EstatisticaRegiao;
+import com.gasparcossa.springbootapiproject.dto.LoteResultado;
+import com.gasparcossa.springbootapiproject.dto.PaisPagina;
+import com.gasparcossa.springbootapiproject.dto.PaisPatch;
+import com.gasparcossa.springbootapiproject.dto.PaisResumo;
+import com.gasparcossa.springbootapiproject.dto.PaisesPorIds;
+import com.gasparcossa.springbootapiproject.dto.Sugestao;
 import com.gasparcossa.springbootapiproject.model.Pais;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import org.springframework.data.domain.Page;
 
 /**
  * Classe que define a logica de negocio CRUD para a nossa API REST
@@ -10,10 +20,20 @@ public interface PaisService {
 
    Pais savePais(Pais pais);
 
+   LoteResultado savePaisesEmLote(List<Pais> paises);
+
    List<Pais> getAllPaises();
 
+   PaisPagina getPaginaDePaises(long after, int limite, List<String> campos);
+
+   void exportarPaisesNdjson(OutputStream saida) throws IOException;
+
+   void exportarPaisesCsv(OutputStream saida) throws IOException;
+
    Pais getPaisById(long id);
 
+   PaisesPorIds getPaisesByIds(List<Long> ids);
+
    List<Pais> getAllPaisesByNome(String nome);
 
    List<Pais> getAllPaisesByCapital(String capital);
@@ -24,10 +44,29 @@ public interface PaisService {
 
    List<Pais> getAllPaisesByArea(double area);
 
+   List<Pais> getPaisesEntreAreas(double min, double max, int limite);
+
+   List<Pais> getMaioresPaises(int k);
+
+   List<Pais> getMenoresPaises(int k);
+
+   List<Sugestao> autocompletar(String campo, String prefixo, int limite);
+
+   List<EstatisticaRegiao> getEstatisticasPorRegiao();
+
+   List<EstatisticaRegiao> getEstatisticasPorSubRegiao();
+
+   Page<PaisResumo> pesquisarPaises(String regiao, String subRegiao, String prefixoNome, String prefixoCapital,
+         Double areaMin, Double areaMax, int pagina, int tamanho, List<String> ordenacao);
+
    Pais updatePais(Pais pais, long id);
 
+   Pais updatePaisParcialmente(PaisPatch patch, long id);
+
    void deletePais(long id);
    
    boolean sameCapitalInPaises(Pais pais);
 
+   boolean sameCapitalInPaises(Pais pais, long id);
+
 }
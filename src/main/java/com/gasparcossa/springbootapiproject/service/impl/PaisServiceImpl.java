@@ -2,11 +2,63 @@ package com.gasparcossa.springbootapiproject.service.impl;
 
 import com.gasparcossa.springbootapiproject.service.PaisService;
 import com.gasparcossa.springbootapiproject.repository.PaisRepository;
+import com.gasparcossa.springbootapiproject.repository.PaisSpecifications;
+import com.gasparcossa.springbootapiproject.exception.ConflitoDeVersaoException;
+import com.gasparcossa.springbootapiproject.exception.ParametroInvalidoException;
 import com.gasparcossa.springbootapiproject.exception.RecursoNaoEncontradoException;
+import com.gasparcossa.springbootapiproject.cache.ConsultasEmAndamento;
+import com.gasparcossa.springbootapiproject.cache.PaisConsultaCache;
+import com.gasparcossa.springbootapiproject.dto.EstatisticaRegiao;
+import com.gasparcossa.springbootapiproject.dto.LoteResultado;
+import com.gasparcossa.springbootapiproject.event.PaisAlteradoEvent;
+import com.gasparcossa.springbootapiproject.event.PaisesAlteradosEvent;
+import com.gasparcossa.springbootapiproject.index.IndiceArea;
+import com.gasparcossa.springbootapiproject.index.IndicePrefixos;
+import com.gasparcossa.springbootapiproject.index.PaisAutocompletar;
+import com.gasparcossa.springbootapiproject.index.PaisEstatisticas;
+import com.gasparcossa.springbootapiproject.index.PaisFiltroDeMembros;
+import com.gasparcossa.springbootapiproject.index.PaisIndiceArea;
+import com.gasparcossa.springbootapiproject.index.PaisReadModel;
+import com.gasparcossa.springbootapiproject.index.PaisSnapshot;
+import com.gasparcossa.springbootapiproject.dto.PaisPagina;
+import com.gasparcossa.springbootapiproject.dto.PaisPatch;
+import com.gasparcossa.springbootapiproject.dto.PaisResumo;
+import com.gasparcossa.springbootapiproject.dto.PaisesPorIds;
+import com.gasparcossa.springbootapiproject.dto.Sugestao;
 import com.gasparcossa.springbootapiproject.model.Pais;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Classe que implementa a classe da camada de servico principal, a classe
@@ -19,9 +71,58 @@ import org.springframework.stereotype.Service;
 // Impl no identificador PaisServiceImpl significa Implementation.
 public class PaisServiceImpl implements PaisService {
 
+    // Atributos de Pais que podem ser pedidos na projecao do /readAll
+    private static final Set<String> CAMPOS_PROJETAVEIS = new HashSet<String>(
+            Arrays.asList("nome", "capital", "regiao", "subRegiao", "area"));
+
+    // De quantos em quantos paises a exportacao empurra os bytes para o cliente
+    private static final int PAISES_POR_FLUSH = 500;
+
+    // Quantidade maxima de capitais numa clausula IN da verificacao do lote
+    private static final int CAPITAIS_POR_CONSULTA = 1000;
+
+    // Quantidade maxima de ids numa clausula IN da leitura por ids
+    private static final int IDS_POR_CONSULTA = 1000;
+
     @Autowired
     private PaisRepository paisRepository;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PaisConsultaCache paisConsultaCache;
+
+    @Autowired
+    private ConsultasEmAndamento consultasEmAndamento;
+
+    @Autowired
+    private PaisFiltroDeMembros paisFiltroDeMembros;
+
+    @Autowired
+    private PaisReadModel paisReadModel;
+
+    @Autowired
+    private PaisIndiceArea paisIndiceArea;
+
+    @Autowired
+    private PaisAutocompletar paisAutocompletar;
+
+    @Autowired
+    private PaisEstatisticas paisEstatisticas;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private Validator validator;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int tamanhoDoBatch;
+
     public PaisServiceImpl() {
     }
 
@@ -38,7 +139,84 @@ public class PaisServiceImpl implements PaisService {
      **/
     @Override
     public Pais savePais(Pais pais) {
-        return paisRepository.save(pais);
+        // O id e a versao sao sempre gerados, mesmo que venham no corpo
+        pais.setId(0);
+        pais.setVersao(null);
+        Pais paisSalvo = paisRepository.save(pais);
+        eventPublisher.publishEvent(
+                PaisesAlteradosEvent.de(new PaisAlteradoEvent(PaisAlteradoEvent.Tipo.CRIADO, paisSalvo.getId(), paisSalvo)));
+        return paisSalvo;
+    }
+
+    /**
+     * Salva um lote de paises na Base de dados numa unica transacao. Os paises
+     * invalidos ou com capital repetida sao reportados pela posicao no lote e os
+     * restantes sao inseridos em batches JDBC
+     * 
+     * @param paises Lista de paises a inserir
+     * @return O resultado com os ids inseridos e os erros de cada pais rejeitado
+     **/
+    @Override
+    @Transactional
+    public LoteResultado savePaisesEmLote(List<Pais> paises) {
+        LoteResultado resultado = new LoteResultado();
+        resultado.setRecebidos(paises.size());
+
+        // Primeiro a validacao de cada pais, sem ir a Base de dados
+        List<Integer> validos = new ArrayList<Integer>();
+        for (int i = 0; i < paises.size(); i++) {
+            Pais pais = paises.get(i);
+            if (pais == null) {
+                resultado.getErros().add(new LoteResultado.ErroDeItem(i, Arrays.asList("O pais nao deve ser nullo")));
+                continue;
+            }
+            Set<ConstraintViolation<Pais>> violacoes = validator.validate(pais);
+            if (!violacoes.isEmpty()) {
+                resultado.getErros().add(new LoteResultado.ErroDeItem(i, violacoes.stream()
+                        .map(ConstraintViolation::getMessage).collect(Collectors.toList())));
+                continue;
+            }
+            validos.add(i);
+        }
+
+        // Depois a unicidade da capital, com uma consulta por conjunto de capitais
+        Set<String> capitaisCadastradas = new HashSet<String>();
+        for (int inicio = 0; inicio < validos.size(); inicio += CAPITAIS_POR_CONSULTA) {
+            Set<String> capitais = new HashSet<String>();
+            for (int indice : validos.subList(inicio, Math.min(inicio + CAPITAIS_POR_CONSULTA, validos.size()))) {
+                capitais.add(paises.get(indice).getCapital());
+            }
+            capitaisCadastradas.addAll(paisRepository.findCapitaisExistentes(capitais));
+        }
+
+        Set<String> capitaisDoLote = new HashSet<String>();
+        List<PaisAlteradoEvent> criados = new ArrayList<PaisAlteradoEvent>();
+        int pendentes = 0;
+        for (int indice : validos) {
+            Pais pais = paises.get(indice);
+            if (capitaisCadastradas.contains(pais.getCapital()) || !capitaisDoLote.add(pais.getCapital())) {
+                resultado.getErros().add(new LoteResultado.ErroDeItem(indice,
+                        Arrays.asList("Nao podes inserir uma capital ja cadastrada!")));
+                continue;
+            }
+            // O id e a versao sao sempre gerados
+            pais.setId(0);
+            pais.setVersao(null);
+            entityManager.persist(pais);
+            resultado.getIds().add(pais.getId());
+            criados.add(new PaisAlteradoEvent(PaisAlteradoEvent.Tipo.CRIADO, pais.getId(), pais));
+            // Esvaziamos o contexto de persistencia a cada batch para ele nao crescer
+            if (++pendentes % tamanhoDoBatch == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        resultado.setInseridos(resultado.getIds().size());
+        if (!criados.isEmpty()) {
+            // Um unico evento para o lote todo
+            eventPublisher.publishEvent(new PaisesAlteradosEvent(criados));
+        }
+        return resultado;
     }
 
     /**
@@ -49,10 +227,164 @@ public class PaisServiceImpl implements PaisService {
      * @return Devolve todos paises da Base de dados
      **/
     @Override
+    @Transactional(readOnly = true)
     public List<Pais> getAllPaises() {
+        PaisSnapshot snapshot = paisReadModel.getSnapshot();
+        if (snapshot != null) {
+            return snapshot.getTodos();
+        }
         return paisRepository.findAll();
     }
 
+    /**
+     * Le uma pagina de paises a partir do cursor informado. Pedimos um pais a
+     * mais que o limite para saber se existe uma proxima pagina sem outra
+     * consulta
+     * 
+     * @param after  Id do ultimo pais da pagina anterior, 0 para a primeira
+     * @param limite Quantidade maxima de paises na pagina
+     * @param campos Atributos a devolver, nullo ou vazio para o pais completo. O
+     *               id e sempre devolvido e os repetidos sao ignorados
+     * @return A pagina com os paises e o cursor da proxima pagina
+     **/
+    @Override
+    @Transactional(readOnly = true)
+    public PaisPagina getPaginaDePaises(long after, int limite, List<String> campos) {
+        PaisSnapshot snapshot = paisReadModel.getSnapshot();
+        if (campos == null || campos.isEmpty()) {
+            List<Pais> paises = snapshot != null ? snapshot.getPaginaDepois(after, limite + 1)
+                    : paisRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, limite + 1));
+            Long proximoCursor = null;
+            if (paises.size() > limite) {
+                paises = paises.subList(0, limite);
+                proximoCursor = paises.get(limite - 1).getId();
+            }
+            return new PaisPagina(paises, proximoCursor);
+        }
+
+        // O id sai sempre, entao pedi-lo ou repetir um campo nao muda a projecao
+        Set<String> distintos = new LinkedHashSet<String>();
+        for (String campo : campos) {
+            if (campo.equals("id")) {
+                continue;
+            }
+            if (!CAMPOS_PROJETAVEIS.contains(campo)) {
+                throw new ParametroInvalidoException("fields", campo);
+            }
+            distintos.add(campo);
+        }
+        List<String> projetados = new ArrayList<String>(distintos);
+        List<Map<String, Object>> linhas = snapshot != null
+                ? projetar(snapshot.getPaginaDepois(after, limite + 1), projetados)
+                : paisRepository.findPaginaProjetada(after, limite + 1, projetados);
+        Long proximoCursor = null;
+        if (linhas.size() > limite) {
+            linhas = linhas.subList(0, limite);
+            proximoCursor = (Long) linhas.get(limite - 1).get("id");
+        }
+        return new PaisPagina(linhas, proximoCursor);
+    }
+
+    // Monta, a partir dos paises do snapshot, as mesmas linhas da projecao feita na Base de dados
+    private static List<Map<String, Object>> projetar(List<Pais> paises, List<String> campos) {
+        List<Map<String, Object>> linhas = new ArrayList<Map<String, Object>>(paises.size());
+        for (Pais pais : paises) {
+            Map<String, Object> linha = new LinkedHashMap<String, Object>();
+            linha.put("id", pais.getId());
+            for (String campo : campos) {
+                switch (campo) {
+                    case "nome":
+                        linha.put(campo, pais.getNome());
+                        break;
+                    case "capital":
+                        linha.put(campo, pais.getCapital());
+                        break;
+                    case "regiao":
+                        linha.put(campo, pais.getRegiao());
+                        break;
+                    case "subRegiao":
+                        linha.put(campo, pais.getSubRegiao());
+                        break;
+                    default:
+                        linha.put(campo, pais.getArea());
+                }
+            }
+            linhas.add(linha);
+        }
+        return linhas;
+    }
+
+    /**
+     * Escreve todos paises da Base de dados na saida, um objecto JSON por linha
+     * (NDJSON), a medida que sao lidos do cursor
+     * 
+     * @param saida Stream onde os paises sao escritos
+     **/
+    @Override
+    @Transactional(readOnly = true)
+    public void exportarPaisesNdjson(OutputStream saida) throws IOException {
+        exportarPaises(saida, null, pais -> {
+            byte[] json = objectMapper.writeValueAsBytes(pais);
+            byte[] linha = Arrays.copyOf(json, json.length + 1);
+            linha[json.length] = '\n';
+            return linha;
+        });
+    }
+
+    /**
+     * Escreve todos paises da Base de dados na saida no formato CSV, a medida que
+     * sao lidos do cursor
+     * 
+     * @param saida Stream onde os paises sao escritos
+     **/
+    @Override
+    @Transactional(readOnly = true)
+    public void exportarPaisesCsv(OutputStream saida) throws IOException {
+        exportarPaises(saida, "id,nome,capital,regiao,subRegiao,area\n", pais -> (pais.getId() + ","
+                + campoCsv(pais.getNome()) + "," + campoCsv(pais.getCapital()) + ","
+                + campoCsv(pais.getRegiao()) + "," + campoCsv(pais.getSubRegiao()) + ","
+                + pais.getArea() + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Percorre o cursor dos paises escrevendo cada um na saida. Cada pais e
+     * desanexado do contexto de persistencia depois de escrito, assim a memoria
+     * usada nao cresce com o tamanho da tabela
+     **/
+    private void exportarPaises(OutputStream saida, String cabecalho, FormatoDeLinha formato) throws IOException {
+        OutputStream buffer = new BufferedOutputStream(saida);
+        if (cabecalho != null) {
+            buffer.write(cabecalho.getBytes(StandardCharsets.UTF_8));
+        }
+        try (Stream<Pais> paises = paisRepository.streamAllByOrderByIdAsc()) {
+            long escritos = 0;
+            Iterator<Pais> iterator = paises.iterator();
+            while (iterator.hasNext()) {
+                Pais pais = iterator.next();
+                buffer.write(formato.formatar(pais));
+                entityManager.detach(pais);
+                escritos++;
+                // O primeiro pais sai logo, para o cliente nao esperar pelo fim da consulta
+                if (escritos == 1 || escritos % PAISES_POR_FLUSH == 0) {
+                    buffer.flush();
+                }
+            }
+        }
+        buffer.flush();
+    }
+
+    private static String campoCsv(String valor) {
+        if (valor.contains(",") || valor.contains("\"") || valor.contains("\n")) {
+            return "\"" + valor.replace("\"", "\"\"") + "\"";
+        }
+        return valor;
+    }
+
+    // Converte um pais na linha escrita pela exportacao
+    private interface FormatoDeLinha {
+        byte[] formatar(Pais pais) throws IOException;
+    }
+
     /**
      * Le um pais na Base de dados pelo id
      * 
@@ -60,8 +392,46 @@ public class PaisServiceImpl implements PaisService {
      * @return Devolve o pais requerido na Base de dados
      **/
     @Override
+    @Transactional(readOnly = true)
     public Pais getPaisById(long id) {
-        return paisRepository.findById(id).orElseThrow(() -> new RecursoNaoEncontradoException("Pais", "Id", id));
+        PaisSnapshot snapshot = paisReadModel.getSnapshot();
+        if (snapshot != null) {
+            Pais pais = snapshot.getPorId(id);
+            if (pais == null) {
+                throw new RecursoNaoEncontradoException("Pais", "Id", id);
+            }
+            return pais;
+        }
+        // O resultado e partilhado com outras threads, entao sai desanexado do
+        // contexto de persistencia de quem fez a consulta
+        return consultasEmAndamento
+                .executar(Arrays.asList("id", id), () -> paisRepository.findById(id).map(Pais::copiar))
+                .orElseThrow(() -> new RecursoNaoEncontradoException("Pais", "Id", id));
+    }
+
+    /**
+     * Retorna os paises dos ids informados, na ordem dos ids, com uma consulta
+     * IN para cada 1000 ids. Os ids que nao existem sao devolvidos a parte, sem
+     * excessao
+     * 
+     * @param ids Ids dos paises
+     * @return Os paises encontrados e os ids nao encontrados
+     **/
+    @Override
+    @Transactional(readOnly = true)
+    public PaisesPorIds getPaisesByIds(List<Long> ids) {
+        Map<Long, Pais> porId = lerPorIds(ids);
+        List<Pais> paises = new ArrayList<Pais>(ids.size());
+        Set<Long> naoEncontrados = new LinkedHashSet<Long>();
+        for (Long id : ids) {
+            Pais pais = porId.get(id);
+            if (pais != null) {
+                paises.add(pais);
+            } else {
+                naoEncontrados.add(id);
+            }
+        }
+        return new PaisesPorIds(paises, new ArrayList<Long>(naoEncontrados));
     }
 
     /**
@@ -71,11 +441,10 @@ public class PaisServiceImpl implements PaisService {
      * @return Devolve os paises da Base de dados
      **/
     @Override
+    @Transactional(readOnly = true)
     public List<Pais> getAllPaisesByNome(String nome) {
-        if (!paisRepository.findByNome(nome).isEmpty()) {
-            return paisRepository.findByNome(nome);
-        }
-        throw new RecursoNaoEncontradoException("Pais", "nome", nome);
+        return consultarPorAtributo("nome", nome, snapshot -> snapshot.getPorAtributo("nome", nome),
+                () -> paisRepository.findByNome(nome));
     }
 
     /**
@@ -85,11 +454,10 @@ public class PaisServiceImpl implements PaisService {
      * @return Devolve os paises na Base de dados
      **/
     @Override
+    @Transactional(readOnly = true)
     public List<Pais> getAllPaisesByCapital(String capital) {
-        if (!paisRepository.findByCapital(capital).isEmpty()) {
-            return paisRepository.findByCapital(capital);
-        }
-        throw new RecursoNaoEncontradoException("Pais", "capital", capital);
+        return consultarPorAtributo("capital", capital, snapshot -> snapshot.getPorAtributo("capital", capital),
+                () -> paisRepository.findByCapital(capital));
     }
 
     /**
@@ -101,11 +469,10 @@ public class PaisServiceImpl implements PaisService {
      * @return Devolve os paises na Base de dados
      **/
     @Override
+    @Transactional(readOnly = true)
     public List<Pais> getAllPaisesByRegiao(String regiao) {
-        if (!paisRepository.findByRegiao(regiao).isEmpty()) {
-            return paisRepository.findByRegiao(regiao);
-        }
-        throw new RecursoNaoEncontradoException("Pais", "regiao", regiao);
+        return consultarPorAtributo("regiao", regiao, snapshot -> snapshot.getPorAtributo("regiao", regiao),
+                () -> paisRepository.findByRegiao(regiao));
     }
 
     /**
@@ -116,11 +483,10 @@ public class PaisServiceImpl implements PaisService {
      * @return Devolve os paises na Base de dados
      **/
     @Override
+    @Transactional(readOnly = true)
     public List<Pais> getAllPaisesBySubRegiao(String subRegiao) {
-        if (!paisRepository.findBySubRegiao(subRegiao).isEmpty()) {
-            return paisRepository.findBySubRegiao(subRegiao);
-        }
-        throw new RecursoNaoEncontradoException("Pais", "subregiao", subRegiao);
+        return consultarPorAtributo("subRegiao", subRegiao, snapshot -> snapshot.getPorAtributo("subRegiao", subRegiao),
+                () -> paisRepository.findBySubRegiao(subRegiao));
     }
 
     /**
@@ -130,34 +496,344 @@ public class PaisServiceImpl implements PaisService {
      * @return Devolve os paises na Base de dados
      **/
     @Override
+    @Transactional(readOnly = true)
     public List<Pais> getAllPaisesByArea(double area) {
-        if (!paisRepository.findByArea(area).isEmpty()) {
-            return paisRepository.findByArea(area);
+        return consultarPorAtributo("area", area, snapshot -> snapshot.getPorArea(area),
+                () -> paisRepository.findByArea(area));
+    }
+
+    /**
+     * Retorna os paises com area entre min e max, inclusive, ordenados pela area
+     * 
+     * @param min    Menor area
+     * @param max    Maior area
+     * @param limite Quantidade maxima de paises
+     * @return Devolve os paises do intervalo
+     **/
+    @Override
+    @Transactional(readOnly = true)
+    public List<Pais> getPaisesEntreAreas(double min, double max, int limite) {
+        IndiceArea indice = paisIndiceArea.getIndice();
+        if (indice == null) {
+            return paisRepository.findByAreaBetweenOrderByAreaAscIdAsc(min, max, PageRequest.of(0, limite));
         }
-        throw new RecursoNaoEncontradoException("Pais", "subregiao", area);
+        return getPaisesPorIds(indice.idsEntre(min, max, limite));
     }
 
     /**
-     * Atualiza um pais da Base de dados pelo id informado
+     * Retorna os k paises de maior area, do maior para o menor
+     * 
+     * @param k Quantidade de paises
+     * @return Devolve os maiores paises
+     **/
+    @Override
+    @Transactional(readOnly = true)
+    public List<Pais> getMaioresPaises(int k) {
+        IndiceArea indice = paisIndiceArea.getIndice();
+        if (indice == null) {
+            return paisRepository.findAllByOrderByAreaDescIdDesc(PageRequest.of(0, k));
+        }
+        return getPaisesPorIds(indice.maiores(k));
+    }
+
+    /**
+     * Retorna os k paises de menor area, do menor para o maior
+     * 
+     * @param k Quantidade de paises
+     * @return Devolve os menores paises
+     **/
+    @Override
+    @Transactional(readOnly = true)
+    public List<Pais> getMenoresPaises(int k) {
+        IndiceArea indice = paisIndiceArea.getIndice();
+        if (indice == null) {
+            return paisRepository.findAllByOrderByAreaAscIdAsc(PageRequest.of(0, k));
+        }
+        return getPaisesPorIds(indice.menores(k));
+    }
+
+    /**
+     * Sugere os valores do campo que comecam com o prefixo, ignorando acentos e
+     * maiusculas, a partir do indice em memoria. Enquanto o indice nao foi
+     * construido a consulta vai a Base de dados, sem ignorar os acentos
+     * 
+     * @param campo   nome ou capital
+     * @param prefixo Inicio do valor
+     * @param limite  Quantidade maxima de sugestoes
+     * @return As sugestoes em ordem alfabetica
+     **/
+    @Override
+    @Transactional(readOnly = true)
+    public List<Sugestao> autocompletar(String campo, String prefixo, int limite) {
+        if (!campo.equals("nome") && !campo.equals("capital")) {
+            throw new ParametroInvalidoException("field", campo);
+        }
+        IndicePrefixos indice = paisAutocompletar.getIndice(campo);
+        if (indice != null) {
+            return indice.comPrefixo(prefixo, limite);
+        }
+        boolean porNome = campo.equals("nome");
+        List<Pais> paises = porNome
+                ? paisRepository.findByNomeStartingWithIgnoreCaseOrderByNomeAsc(prefixo, PageRequest.of(0, limite))
+                : paisRepository.findByCapitalStartingWithIgnoreCaseOrderByCapitalAsc(prefixo,
+                        PageRequest.of(0, limite));
+        List<Sugestao> sugestoes = new ArrayList<Sugestao>(paises.size());
+        for (Pais pais : paises) {
+            sugestoes.add(new Sugestao(pais.getId(), porNome ? pais.getNome() : pais.getCapital()));
+        }
+        return sugestoes;
+    }
+
+    /**
+     * Quantidade de paises e area total e media de cada regiao, lidas das
+     * estatisticas em memoria. Enquanto elas nao foram construidas a Base de
+     * dados agrupa os paises
+     * 
+     * @return As estatisticas em ordem alfabetica da regiao
+     **/
+    @Override
+    @Transactional(readOnly = true)
+    public List<EstatisticaRegiao> getEstatisticasPorRegiao() {
+        List<EstatisticaRegiao> estatisticas = paisEstatisticas.getPorRegiao();
+        return estatisticas != null ? estatisticas : paraEstatisticas(paisRepository.agruparPorRegiao());
+    }
+
+    /**
+     * Quantidade de paises e area total e media de cada sub-regiao, lidas das
+     * estatisticas em memoria. Enquanto elas nao foram construidas a Base de
+     * dados agrupa os paises
+     * 
+     * @return As estatisticas em ordem alfabetica da sub-regiao
+     **/
+    @Override
+    @Transactional(readOnly = true)
+    public List<EstatisticaRegiao> getEstatisticasPorSubRegiao() {
+        List<EstatisticaRegiao> estatisticas = paisEstatisticas.getPorSubRegiao();
+        return estatisticas != null ? estatisticas : paraEstatisticas(paisRepository.agruparPorSubRegiao());
+    }
+
+    // Converte as linhas [nome, quantidade, area total] do GROUP BY
+    private static List<EstatisticaRegiao> paraEstatisticas(List<Object[]> linhas) {
+        List<EstatisticaRegiao> estatisticas = new ArrayList<EstatisticaRegiao>(linhas.size());
+        for (Object[] linha : linhas) {
+            long paises = (Long) linha[1];
+            double areaTotal = (Double) linha[2];
+            estatisticas.add(new EstatisticaRegiao((String) linha[0], paises, areaTotal, areaTotal / paises));
+        }
+        return estatisticas;
+    }
+
+    /**
+     * Pesquisa paises combinando os filtros informados numa unica consulta. Os
+     * filtros nullos sao ignorados
+     * 
+     * @param regiao         Regiao exata
+     * @param subRegiao      Sub-regiao exata
+     * @param prefixoNome    Inicio do nome
+     * @param prefixoCapital Inicio da capital
+     * @param areaMin        Menor area, inclusive
+     * @param areaMax        Maior area, inclusive
+     * @param pagina         Numero da pagina, a comecar em 0
+     * @param tamanho        Quantidade de paises por pagina
+     * @param ordenacao      Atributos para ordenar, com - a frente para ordem
+     *                       decrescente (ex: regiao,-area)
+     * @return A pagina com os resumos dos paises encontrados
+     **/
+    @Override
+    @Transactional(readOnly = true)
+    public Page<PaisResumo> pesquisarPaises(String regiao, String subRegiao, String prefixoNome,
+            String prefixoCapital, Double areaMin, Double areaMax, int pagina, int tamanho, List<String> ordenacao) {
+        Specification<Pais> especificacao = Specification.where(PaisSpecifications.regiaoIgual(regiao))
+                .and(PaisSpecifications.subRegiaoIgual(subRegiao))
+                .and(PaisSpecifications.nomeComecaCom(prefixoNome))
+                .and(PaisSpecifications.capitalComecaCom(prefixoCapital))
+                .and(PaisSpecifications.areaEntre(areaMin, areaMax));
+
+        List<Sort.Order> ordens = new ArrayList<Sort.Order>();
+        if (ordenacao != null) {
+            for (String criterio : ordenacao) {
+                boolean decrescente = criterio.startsWith("-");
+                String campo = decrescente ? criterio.substring(1) : criterio;
+                if (!campo.equals("id") && !CAMPOS_PROJETAVEIS.contains(campo)) {
+                    throw new ParametroInvalidoException("sort", criterio);
+                }
+                ordens.add(decrescente ? Sort.Order.desc(campo) : Sort.Order.asc(campo));
+            }
+        }
+        // O id no fim deixa a ordem estavel entre paginas
+        ordens.add(Sort.Order.asc("id"));
+        return paisRepository.findResumos(especificacao, PageRequest.of(pagina, tamanho, Sort.by(ordens)));
+    }
+
+    /**
+     * Le os paises dos ids informados mantendo a ordem dos ids. Ids que ja nao
+     * existem sao ignorados
+     **/
+    private List<Pais> getPaisesPorIds(long[] ids) {
+        List<Long> listaDeIds = new ArrayList<Long>(ids.length);
+        for (long id : ids) {
+            listaDeIds.add(id);
+        }
+        Map<Long, Pais> porId = lerPorIds(listaDeIds);
+        List<Pais> paises = new ArrayList<Pais>(ids.length);
+        for (long id : ids) {
+            Pais pais = porId.get(id);
+            if (pais != null) {
+                paises.add(pais);
+            }
+        }
+        return paises;
+    }
+
+    /**
+     * Le os paises dos ids informados do snapshot, se estiver ativo, ou da Base
+     * de dados com uma consulta IN para cada IDS_POR_CONSULTA ids distintos
+     * 
+     * @param ids Ids dos paises, podem ter repeticoes
+     * @return Os paises encontrados pelo id
+     **/
+    private Map<Long, Pais> lerPorIds(Collection<Long> ids) {
+        Map<Long, Pais> porId = new HashMap<Long, Pais>();
+        PaisSnapshot snapshot = paisReadModel.getSnapshot();
+        if (snapshot != null) {
+            for (Long id : ids) {
+                Pais pais = snapshot.getPorId(id);
+                if (pais != null) {
+                    porId.put(id, pais);
+                }
+            }
+            return porId;
+        }
+        List<Long> distintos = new ArrayList<Long>(new LinkedHashSet<Long>(ids));
+        for (int inicio = 0; inicio < distintos.size(); inicio += IDS_POR_CONSULTA) {
+            List<Long> bloco = distintos.subList(inicio, Math.min(inicio + IDS_POR_CONSULTA, distintos.size()));
+            for (Pais pais : paisRepository.findAllById(bloco)) {
+                porId.put(pais.getId(), pais);
+            }
+        }
+        return porId;
+    }
+
+    /**
+     * Le os paises com o valor informado no atributo. No modo snapshot a leitura
+     * e feita so em memoria. Senao passa pelo filtro de Bloom e pelo cache de
+     * consultas: um valor que com certeza nao existe nao chega a Base de dados e
+     * uma falha no cache custa uma unica consulta, mesmo com varias leituras
+     * iguais ao mesmo tempo
+     * 
+     * @param atributo          Nome do atributo da classe Pais
+     * @param valor             Valor procurado
+     * @param leituraDoSnapshot Leitura do indice do snapshot pelo atributo
+     * @param consulta          Consulta ao PaisRepository pelo atributo
+     * @return Devolve os paises encontrados
+     **/
+    private List<Pais> consultarPorAtributo(String atributo, Object valor,
+            Function<PaisSnapshot, List<Pais>> leituraDoSnapshot, Supplier<List<Pais>> consulta) {
+        PaisSnapshot snapshot = paisReadModel.getSnapshot();
+        if (snapshot != null) {
+            List<Pais> paises = leituraDoSnapshot.apply(snapshot);
+            if (paises.isEmpty()) {
+                throw new RecursoNaoEncontradoException("Pais", atributo, valor);
+            }
+            return paises;
+        }
+        if (!paisFiltroDeMembros.podeExistir(atributo, valor)) {
+            throw new RecursoNaoEncontradoException("Pais", atributo, valor);
+        }
+        // Na falha do cache, leituras iguais ao mesmo tempo partilham a consulta
+        List<Pais> paises = paisConsultaCache.obter(atributo, valor,
+                () -> consultasEmAndamento.executar(Arrays.asList(atributo, valor), consulta));
+        if (paises.isEmpty()) {
+            throw new RecursoNaoEncontradoException("Pais", atributo, valor);
+        }
+        return paises;
+    }
+
+    /**
+     * Atualiza um pais da Base de dados pelo id informado num unico UPDATE. Se o
+     * pais informado tiver versao, a atualizacao so e feita se o pais ainda
+     * estiver nessa versao
      * 
      * @param pais Objecto que contem as informacoes da classe Pais
      * @param id   Atributo da classe Pais
-     * @return O Pais atualizado
+     * @return O Pais atualizado, com a nova versao
      **/
     @Override
+    @Transactional
     public Pais updatePais(Pais pais, long id) {
-        // Checamos se o pais com esse id dado existe na base de dados
-        Pais paisExistente = paisRepository.findById(id)
+        Long versao = pais.getVersao();
+        int atualizados = versao == null
+                ? paisRepository.updateById(id, pais.getNome(), pais.getCapital(), pais.getRegiao(),
+                        pais.getSubRegiao(), pais.getArea())
+                : paisRepository.updateByIdAndVersao(id, versao, pais.getNome(), pais.getCapital(),
+                        pais.getRegiao(), pais.getSubRegiao(), pais.getArea());
+        if (atualizados == 0) {
+            throw falhaDeEscrita(id, versao);
+        }
+        Pais paisAtualizado = new Pais();
+        paisAtualizado.setId(id);
+        paisAtualizado.setNome(pais.getNome());
+        paisAtualizado.setCapital(pais.getCapital());
+        paisAtualizado.setRegiao(pais.getRegiao());
+        paisAtualizado.setSubRegiao(pais.getSubRegiao());
+        paisAtualizado.setArea(pais.getArea());
+        // Sem a versao anterior, lemos a nova na mesma transacao, que ja tem o
+        // lock da linha atualizada
+        paisAtualizado.setVersao(versao == null ? paisRepository.findVersaoById(id) : versao + 1);
+        eventPublisher.publishEvent(
+                PaisesAlteradosEvent.de(new PaisAlteradoEvent(PaisAlteradoEvent.Tipo.ATUALIZADO, id, paisAtualizado)));
+        return paisAtualizado;
+    }
+
+    /**
+     * Atualiza somente os atributos informados de um pais num unico UPDATE e
+     * devolve o pais como ficou
+     * 
+     * @param patch Atributos a alterar e, opcionalmente, a versao esperada
+     * @param id    Atributo da classe Pais
+     * @return O Pais atualizado
+     **/
+    @Override
+    @Transactional
+    public Pais updatePaisParcialmente(PaisPatch patch, long id) {
+        Map<String, Object> alteracoes = new LinkedHashMap<String, Object>();
+        if (patch.getNome() != null) {
+            alteracoes.put("nome", patch.getNome());
+        }
+        if (patch.getCapital() != null) {
+            alteracoes.put("capital", patch.getCapital());
+        }
+        if (patch.getRegiao() != null) {
+            alteracoes.put("regiao", patch.getRegiao());
+        }
+        if (patch.getSubRegiao() != null) {
+            alteracoes.put("subRegiao", patch.getSubRegiao());
+        }
+        if (patch.getArea() != null) {
+            alteracoes.put("area", patch.getArea());
+        }
+        if (alteracoes.isEmpty()) {
+            throw new ParametroInvalidoException("corpo", "sem atributos para alterar");
+        }
+        if (paisRepository.updateParcial(id, patch.getVersao(), alteracoes) == 0) {
+            throw falhaDeEscrita(id, patch.getVersao());
+        }
+        Pais paisAtualizado = paisRepository.findById(id)
                 .orElseThrow(() -> new RecursoNaoEncontradoException("Pais", "Id", id));
-        // Fim da checagem
-        paisExistente.setNome(pais.getNome());
-        paisExistente.setCapital(pais.getCapital());
-        paisExistente.setRegiao(pais.getRegiao());
-        paisExistente.setSubRegiao(pais.getSubRegiao());
-        paisExistente.setArea(pais.getArea());
-        // Salvamos na Base de dados
-        paisRepository.save(paisExistente);
-        return paisExistente;
+        eventPublisher.publishEvent(
+                PaisesAlteradosEvent.de(new PaisAlteradoEvent(PaisAlteradoEvent.Tipo.ATUALIZADO, id, paisAtualizado)));
+        return paisAtualizado;
+    }
+
+    /**
+     * Decide porque uma escrita condicional nao alterou nenhuma linha. So neste
+     * caso raro voltamos a Base de dados
+     **/
+    private RuntimeException falhaDeEscrita(long id, Long versao) {
+        if (versao != null && paisRepository.existsById(id)) {
+            return new ConflitoDeVersaoException("Pais", id, versao);
+        }
+        return new RecursoNaoEncontradoException("Pais", "Id", id);
     }
 
     /**
@@ -168,31 +844,42 @@ public class PaisServiceImpl implements PaisService {
      * @return O Pais deletado
      **/
     @Override
+    @Transactional
     public void deletePais(long id) {
-        // Checamos se o pais com esse id dado existe na base de dados
-        paisRepository.findById(id)
-                .orElseThrow(() -> new RecursoNaoEncontradoException("Pais", "Id", id));
-        // Fim da checagem
-        paisRepository.deleteById(id);
+        // Um unico DELETE, e o numero de linhas apagadas diz se o pais existia
+        if (paisRepository.deleteByIdReturningCount(id) == 0) {
+            throw new RecursoNaoEncontradoException("Pais", "Id", id);
+        }
+        eventPublisher.publishEvent(
+                PaisesAlteradosEvent.de(new PaisAlteradoEvent(PaisAlteradoEvent.Tipo.REMOVIDO, id, null)));
     }
 
-       /**
+    /**
      * Verifica se ja existe um pais com essa capital que queremos inserir
+     * 
      * @param pais Instancia de Pais
      * @return true se existe e false se nao
      */
+    // Transacao de escrita: a verificacao antes de uma escrita tem de ver a
+    // primaria, nao uma replica atrasada
     @Override
+    @Transactional
     public boolean sameCapitalInPaises(Pais pais) {
-        List<Pais> paises = this.getAllPaises();
-        int flag = 0;
-        for (int i = 0; i < paises.size(); i++) {
-            if (paises.get(i).getCapital().equals(pais.getCapital())) {
-                flag++;
-            }
-        }
-        if (flag > 0) {
-            return true;
-        }
-        return false;
+        // Uma unica consulta pelo indice unico da capital, sem carregar a tabela
+        return paisRepository.existsByCapital(pais.getCapital());
+    }
+
+    /**
+     * Verifica se ja existe outro pais com a capital que queremos atribuir ao
+     * pais com o id informado
+     * 
+     * @param pais Instancia de Pais
+     * @param id   Id do pais que esta sendo atualizado
+     * @return true se existe e false se nao
+     */
+    @Override
+    @Transactional
+    public boolean sameCapitalInPaises(Pais pais, long id) {
+        return paisRepository.existsByCapitalAndIdNot(pais.getCapital(), id);
     }
 }
@@ -0,0 +1,107 @@
+package com.gasparcossa.springbootapiproject.web;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JSON ja serializado em UTF-8, para o Jackson escrever como valor bruto. Num
+ * gerador UTF-8 os bytes sao copiados como estao, os outros metodos decodificam
+ * o JSON so quando sao chamados
+ */
+class FragmentoJson implements SerializableString {
+
+    private final byte[] json;
+
+    private SerializedString texto;
+
+    FragmentoJson(byte[] json) {
+        this.json = json;
+    }
+
+    private SerializedString texto() {
+        if (texto == null) {
+            texto = new SerializedString(new String(json, StandardCharsets.UTF_8));
+        }
+        return texto;
+    }
+
+    @Override
+    public String getValue() {
+        return texto().getValue();
+    }
+
+    @Override
+    public int charLength() {
+        return texto().charLength();
+    }
+
+    @Override
+    public char[] asQuotedChars() {
+        return texto().asQuotedChars();
+    }
+
+    @Override
+    public byte[] asUnquotedUTF8() {
+        return json;
+    }
+
+    @Override
+    public byte[] asQuotedUTF8() {
+        return texto().asQuotedUTF8();
+    }
+
+    @Override
+    public int appendQuotedUTF8(byte[] buffer, int offset) {
+        return texto().appendQuotedUTF8(buffer, offset);
+    }
+
+    @Override
+    public int appendQuoted(char[] buffer, int offset) {
+        return texto().appendQuoted(buffer, offset);
+    }
+
+    @Override
+    public int appendUnquotedUTF8(byte[] buffer, int offset) {
+        // -1 quando nao cabe, o gerador escreve entao os bytes de asUnquotedUTF8
+        if (offset + json.length > buffer.length) {
+            return -1;
+        }
+        System.arraycopy(json, 0, buffer, offset, json.length);
+        return json.length;
+    }
+
+    @Override
+    public int appendUnquoted(char[] buffer, int offset) {
+        return texto().appendUnquoted(buffer, offset);
+    }
+
+    @Override
+    public int writeQuotedUTF8(OutputStream out) throws IOException {
+        return texto().writeQuotedUTF8(out);
+    }
+
+    @Override
+    public int writeUnquotedUTF8(OutputStream out) throws IOException {
+        out.write(json);
+        return json.length;
+    }
+
+    @Override
+    public int putQuotedUTF8(ByteBuffer buffer) throws IOException {
+        return texto().putQuotedUTF8(buffer);
+    }
+
+    @Override
+    public int putUnquotedUTF8(ByteBuffer buffer) throws IOException {
+        if (json.length > buffer.remaining()) {
+            return -1;
+        }
+        buffer.put(json);
+        return json.length;
+    }
+
+}
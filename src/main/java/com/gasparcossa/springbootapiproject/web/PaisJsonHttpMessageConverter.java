@@ -0,0 +1,73 @@
+package com.gasparcossa.springbootapiproject.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.gasparcossa.springbootapiproject.cache.PaisJsonCache;
+import com.gasparcossa.springbootapiproject.dto.PaisPagina;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * Conversor JSON que escreve listas de paises, e paginas do /readAll com
+ * paises completos, pondo os fragmentos do PaisJsonCache no lugar de cada pais.
+ * O resto da resposta continua a ser escrito pelo Jackson, com a configuracao
+ * do ObjectMapper
+ */
+public class PaisJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final PaisJsonCache paisJsonCache;
+
+    public PaisJsonHttpMessageConverter(ObjectMapper objectMapper, PaisJsonCache paisJsonCache) {
+        super(objectMapper);
+        this.paisJsonCache = paisJsonCache;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        MediaType contentType = outputMessage.getHeaders().getContentType();
+        boolean utf8 = contentType == null || contentType.getCharset() == null
+                || StandardCharsets.UTF_8.equals(contentType.getCharset());
+        if (utf8 && object instanceof List && somentePaises((List<?>) object)) {
+            // Sem o tipo declarado, List<Pais>, o Jackson escolhe o serializador pelo valor
+            super.writeInternal(fragmentos((List<?>) object), null, outputMessage);
+            return;
+        }
+        if (utf8 && object instanceof PaisPagina && somentePaises(((PaisPagina) object).getConteudo())) {
+            PaisPagina pagina = (PaisPagina) object;
+            super.writeInternal(new PaisPagina(fragmentos(pagina.getConteudo()), pagina.getProximoCursor()),
+                    PaisPagina.class, outputMessage);
+            return;
+        }
+        super.writeInternal(object, type, outputMessage);
+    }
+
+    private List<RawValue> fragmentos(List<?> paises) throws IOException {
+        List<RawValue> fragmentos = new ArrayList<RawValue>(paises.size());
+        for (Object pais : paises) {
+            fragmentos.add(new RawValue(new FragmentoJson(paisJsonCache.getJson((Pais) pais))));
+        }
+        return fragmentos;
+    }
+
+    private static boolean somentePaises(List<?> lista) {
+        if (lista == null) {
+            return false;
+        }
+        for (Object elemento : lista) {
+            if (!(elemento instanceof Pais)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
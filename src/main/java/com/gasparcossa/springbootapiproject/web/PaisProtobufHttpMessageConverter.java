@@ -0,0 +1,179 @@
+package com.gasparcossa.springbootapiproject.web;
+
+import com.gasparcossa.springbootapiproject.dto.PaisPagina;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+/**
+ * Escreve paises no formato protobuf descrito em proto/pais.proto, cada um
+ * precedido do seu tamanho. A codificacao e feita a mao pois o esquema so tem
+ * uma mensagem simples.
+ *
+ * So aceita um Pais, uma lista de paises ou uma PaisPagina. As linhas de uma
+ * pagina projetada saem como mensagens Pais so com os campos pedidos. Para
+ * qualquer outro corpo, como as listas de erros, o pedido recebe 406
+ */
+public class PaisProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+    public PaisProtobufHttpMessageConverter() {
+        super(PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Pais.class.isAssignableFrom(clazz) || List.class.isAssignableFrom(clazz)
+                || PaisPagina.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return canWrite(null, clazz, mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return canWrite(mediaType) && escreve(type, clazz);
+    }
+
+    // Uma lista so e aceite quando o tipo declarado diz que os elementos sao paises
+    private static boolean escreve(Type type, Class<?> clazz) {
+        ResolvableType tipo = type != null ? ResolvableType.forType(type) : ResolvableType.forClass(clazz);
+        if (tipo.resolve(Object.class) == Object.class) {
+            // ResponseEntity<Object> ou <?>: so a classe do valor diz o que e
+            tipo = ResolvableType.forClass(clazz);
+        }
+        Class<?> classe = tipo.resolve(Object.class);
+        if (Pais.class.isAssignableFrom(classe) || PaisPagina.class.isAssignableFrom(classe)) {
+            return true;
+        }
+        Class<?> elemento = List.class.isAssignableFrom(classe) ? tipo.asCollection().resolveGeneric(0) : null;
+        return elemento != null && Pais.class.isAssignableFrom(elemento);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        throw new HttpMessageNotReadableException("Protobuf so e suportado nas respostas", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        throw new HttpMessageNotReadableException("Protobuf so e suportado nas respostas", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        List<?> paises;
+        if (object instanceof Pais) {
+            paises = Collections.singletonList(object);
+        } else if (object instanceof PaisPagina) {
+            PaisPagina pagina = (PaisPagina) object;
+            paises = pagina.getConteudo();
+            if (pagina.getProximoCursor() != null) {
+                outputMessage.getHeaders().set("X-Proximo-Cursor", pagina.getProximoCursor().toString());
+            }
+        } else {
+            paises = (List<?>) object;
+        }
+
+        OutputStream saida = outputMessage.getBody();
+        ByteArrayOutputStream mensagem = new ByteArrayOutputStream(128);
+        for (Object elemento : paises) {
+            Pais pais;
+            if (elemento instanceof Pais) {
+                pais = (Pais) elemento;
+            } else if (elemento instanceof Map) {
+                pais = paraPais((Map<?, ?>) elemento);
+            } else {
+                throw new HttpMessageNotWritableException("Somente paises podem ser escritos em protobuf");
+            }
+            mensagem.reset();
+            codificar(pais, mensagem);
+            escreverVarint(saida, mensagem.size());
+            mensagem.writeTo(saida);
+        }
+        saida.flush();
+    }
+
+    // Linha de uma pagina projetada: os campos que nao foram pedidos ficam com o
+    // valor padrao e nao sao escritos
+    private static Pais paraPais(Map<?, ?> linha) {
+        Pais pais = new Pais();
+        if (linha.get("id") instanceof Number) {
+            pais.setId(((Number) linha.get("id")).longValue());
+        }
+        pais.setNome((String) linha.get("nome"));
+        pais.setCapital((String) linha.get("capital"));
+        pais.setRegiao((String) linha.get("regiao"));
+        pais.setSubRegiao((String) linha.get("subRegiao"));
+        if (linha.get("area") instanceof Number) {
+            pais.setArea(((Number) linha.get("area")).doubleValue());
+        }
+        return pais;
+    }
+
+    // Campos com o valor padrao nao sao escritos, como no proto3
+    private static void codificar(Pais pais, OutputStream saida) throws IOException {
+        if (pais.getId() != 0) {
+            escreverVarint(saida, 1 << 3);
+            escreverVarint(saida, pais.getId());
+        }
+        escreverTexto(saida, 2, pais.getNome());
+        escreverTexto(saida, 3, pais.getCapital());
+        escreverTexto(saida, 4, pais.getRegiao());
+        escreverTexto(saida, 5, pais.getSubRegiao());
+        if (pais.getArea() != 0) {
+            escreverVarint(saida, 6 << 3 | 1);
+            long bits = Double.doubleToRawLongBits(pais.getArea());
+            for (int i = 0; i < 8; i++) {
+                saida.write((int) (bits >>> (8 * i)));
+            }
+        }
+        if (pais.getVersao() != null && pais.getVersao() != 0) {
+            escreverVarint(saida, 7 << 3);
+            escreverVarint(saida, pais.getVersao());
+        }
+    }
+
+    private static void escreverTexto(OutputStream saida, int campo, String valor) throws IOException {
+        if (valor == null || valor.isEmpty()) {
+            return;
+        }
+        byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+        escreverVarint(saida, campo << 3 | 2);
+        escreverVarint(saida, bytes.length);
+        saida.write(bytes);
+    }
+
+    private static void escreverVarint(OutputStream saida, long valor) throws IOException {
+        while ((valor & ~0x7FL) != 0) {
+            saida.write((int) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        saida.write((int) valor);
+    }
+
+}
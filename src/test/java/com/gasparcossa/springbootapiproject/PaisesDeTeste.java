@@ -0,0 +1,48 @@
+package com.gasparcossa.springbootapiproject;
+
+import com.gasparcossa.springbootapiproject.model.Pais;
+
+/**
+ * Paises validos para os testes e benchmarks. Os atributos de Pais so aceitam
+ * letras, entao os paises gerados por indice codificam o indice em base 26
+ */
+public final class PaisesDeTeste {
+
+	public static final String[] REGIOES = { "Africa", "Americas", "Asia", "Europa", "Oceania" };
+
+	private PaisesDeTeste() {
+	}
+
+	public static Pais novoPais(String nome, String capital) {
+		return novoPais(nome, capital, "Africa", "Austral", 1000);
+	}
+
+	public static Pais novoPais(String nome, String capital, String regiao, String subRegiao, double area) {
+		Pais pais = new Pais();
+		pais.setNome(nome);
+		pais.setCapital(capital);
+		pais.setRegiao(regiao);
+		pais.setSubRegiao(subRegiao);
+		pais.setArea(area);
+		return pais;
+	}
+
+	/**
+	 * Um pais distinto para cada indice, com a regiao e a area espalhadas
+	 **/
+	public static Pais novoPais(int indice) {
+		String regiao = REGIOES[indice % REGIOES.length];
+		return novoPais("Pais" + letras(indice), "Capital" + letras(indice), regiao, "Sub" + regiao,
+				1 + (indice * 7919L) % 17000000);
+	}
+
+	public static String letras(int indice) {
+		StringBuilder sb = new StringBuilder();
+		do {
+			sb.append((char) ('a' + indice % 26));
+			indice /= 26;
+		} while (indice > 0);
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,130 @@
+package com.gasparcossa.springbootapiproject.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.gasparcossa.springbootapiproject.datasource.ContextoDeRoteamento;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ConsultasEmAndamentoTests {
+
+	private static final int THREADS = 16;
+
+	private ConsultasEmAndamento consultas;
+	private ExecutorService executor;
+
+	@BeforeEach
+	void setUp() {
+		consultas = new ConsultasEmAndamento();
+		ReflectionTestUtils.setField(consultas, "ativo", true);
+		executor = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void leiturasIguaisAoMesmoTempoPartilhamUmaConsulta() throws Exception {
+		AtomicInteger execucoes = new AtomicInteger();
+		CountDownLatch liberar = new CountDownLatch(1);
+		List<Future<Object>> leituras = lerAoMesmoTempo(() -> {
+			execucoes.incrementAndGet();
+			esperar(liberar);
+			return "Europa";
+		});
+		// Da tempo para todas as threads chegarem enquanto a primeira espera
+		esperarAte(() -> consultas.getPartilhadas() == THREADS - 1);
+		liberar.countDown();
+
+		for (Future<Object> leitura : leituras) {
+			assertEquals("Europa", leitura.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, execucoes.get());
+		assertEquals(0, consultas.getEmAndamento());
+	}
+
+	@Test
+	void falhaEPartilhadaELimpa() throws Exception {
+		IllegalStateException falha = new IllegalStateException("pool esgotado");
+		CountDownLatch liberar = new CountDownLatch(1);
+		List<Future<Object>> leituras = lerAoMesmoTempo(() -> {
+			esperar(liberar);
+			throw falha;
+		});
+		esperarAte(() -> consultas.getPartilhadas() == THREADS - 1);
+		liberar.countDown();
+
+		for (Future<Object> leitura : leituras) {
+			ExecutionException ex = assertThrows(ExecutionException.class, () -> leitura.get(5, TimeUnit.SECONDS));
+			assertSame(falha, ex.getCause());
+		}
+		assertEquals(0, consultas.getEmAndamento());
+		// A proxima leitura executa uma consulta nova
+		assertEquals("Africa", consultas.executar("regiao", () -> "Africa"));
+	}
+
+	@Test
+	void leituraDaPrimariaNaoPartilhaAConsultaDaReplica() throws Exception {
+		CountDownLatch liberar = new CountDownLatch(1);
+		Future<Object> daReplica = executor.submit(() -> consultas.executar("regiao", () -> {
+			esperar(liberar);
+			return "antes da escrita";
+		}));
+		esperarAte(() -> consultas.getEmAndamento() == 1);
+
+		Future<Object> daPrimaria = executor.submit(() -> {
+			ContextoDeRoteamento.forcarPrimaria();
+			try {
+				return consultas.executar("regiao", () -> "depois da escrita");
+			} finally {
+				ContextoDeRoteamento.limpar();
+			}
+		});
+
+		assertEquals("depois da escrita", daPrimaria.get(5, TimeUnit.SECONDS));
+		liberar.countDown();
+		assertEquals("antes da escrita", daReplica.get(5, TimeUnit.SECONDS));
+		assertEquals(0, consultas.getPartilhadas());
+	}
+
+	private List<Future<Object>> lerAoMesmoTempo(Supplier<Object> consulta) {
+		List<Future<Object>> leituras = new ArrayList<Future<Object>>();
+		for (int i = 0; i < THREADS; i++) {
+			leituras.add(executor.submit(() -> consultas.executar("regiao", consulta)));
+		}
+		return leituras;
+	}
+
+	private static void esperar(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void esperarAte(BooleanSupplier condicao) throws InterruptedException {
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condicao.getAsBoolean() && System.nanoTime() < limite) {
+			Thread.sleep(5);
+		}
+	}
+
+}
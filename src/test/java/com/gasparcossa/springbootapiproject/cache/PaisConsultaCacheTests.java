@@ -0,0 +1,70 @@
+package com.gasparcossa.springbootapiproject.cache;
+
+import static com.gasparcossa.springbootapiproject.PaisesDeTeste.novoPais;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import com.gasparcossa.springbootapiproject.model.Pais;
+import com.gasparcossa.springbootapiproject.service.PaisService;
+import java.util.Collections;
+import java.util.List;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class PaisConsultaCacheTests {
+
+	@Autowired
+	private PaisService paisService;
+
+	@Autowired
+	private PaisConsultaCache paisConsultaCache;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void falhaCustaUmaConsultaEAcertoNenhuma() {
+		paisService.savePais(novoPais("Quenia", "Nairobi"));
+
+		statistics.clear();
+		List<Pais> falha = paisService.getAllPaisesByNome("Quenia");
+		long consultasDaFalha = statistics.getPrepareStatementCount();
+
+		statistics.clear();
+		List<Pais> acerto = paisService.getAllPaisesByNome("Quenia");
+		long consultasDoAcerto = statistics.getPrepareStatementCount();
+
+		assertEquals(1, consultasDaFalha);
+		assertEquals(0, consultasDoAcerto);
+		assertEquals(falha, acerto);
+	}
+
+	@Test
+	void guardaCopiasEmVezDasEntidadesLidas() {
+		Pais lido = novoPais("Gana", "Acra");
+		lido.setId(910001);
+
+		List<Pais> paises = paisConsultaCache.obter("nome", "Gana", () -> Collections.singletonList(lido));
+		// Quem fez a consulta continua com a sua entidade e pode altera-la
+		lido.setCapital("Outra");
+
+		assertNotSame(lido, paises.get(0));
+		assertEquals("Acra", paisConsultaCache.obter("nome", "Gana", Collections::emptyList).get(0).getCapital());
+	}
+
+}
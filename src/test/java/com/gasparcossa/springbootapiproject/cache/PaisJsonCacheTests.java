@@ -0,0 +1,60 @@
+package com.gasparcossa.springbootapiproject.cache;
+
+import static com.gasparcossa.springbootapiproject.PaisesDeTeste.novoPais;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gasparcossa.springbootapiproject.event.PaisAlteradoEvent;
+import com.gasparcossa.springbootapiproject.event.PaisesAlteradosEvent;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class PaisJsonCacheTests {
+
+	private PaisJsonCache cache;
+
+	@BeforeEach
+	void setUp() {
+		cache = new PaisJsonCache();
+		ReflectionTestUtils.setField(cache, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(cache, "tamanhoMaximo", 2);
+	}
+
+	@Test
+	void cheioDescartaSoOMenosUsado() throws Exception {
+		Pais angola = pais(1, "Angola", "Luanda");
+		Pais brasil = pais(2, "Brasil", "Brasilia");
+		byte[] jsonDeAngola = cache.getJson(angola);
+		byte[] jsonDoBrasil = cache.getJson(brasil);
+		cache.getJson(angola);
+
+		cache.getJson(pais(3, "Chile", "Santiago"));
+
+		assertSame(jsonDeAngola, cache.getJson(angola));
+		assertNotSame(jsonDoBrasil, cache.getJson(brasil));
+	}
+
+	@Test
+	void alteracaoDescartaSoOPaisAlterado() throws Exception {
+		Pais angola = pais(1, "Angola", "Luanda");
+		Pais brasil = pais(2, "Brasil", "Brasilia");
+		byte[] jsonDeAngola = cache.getJson(angola);
+		byte[] jsonDoBrasil = cache.getJson(brasil);
+
+		cache.invalidar(PaisesAlteradosEvent.de(new PaisAlteradoEvent(PaisAlteradoEvent.Tipo.ATUALIZADO, 2, brasil)));
+
+		assertSame(jsonDeAngola, cache.getJson(angola));
+		assertNotSame(jsonDoBrasil, cache.getJson(brasil));
+	}
+
+	private static Pais pais(long id, String nome, String capital) {
+		Pais pais = novoPais(nome, capital);
+		pais.setId(id);
+		pais.setVersao(0L);
+		return pais;
+	}
+
+}
@@ -0,0 +1,45 @@
+package com.gasparcossa.springbootapiproject.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.gasparcossa.springbootapiproject.event.PaisAlteradoEvent;
+import com.gasparcossa.springbootapiproject.event.PaisesAlteradosEvent;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import org.junit.jupiter.api.Test;
+
+class PaisVersoesTests {
+
+	private final PaisVersoes versoes = new PaisVersoes();
+
+	@Test
+	void leituraLentaNaoVoltaParaUmaVersaoAntiga() {
+		// A leitura leu a versao 1, a atualizacao confirma a 2 antes dela registar
+		versoes.alterar(PaisesAlteradosEvent.de(new PaisAlteradoEvent(PaisAlteradoEvent.Tipo.ATUALIZADO, 7, comVersao(2L))));
+		versoes.registrar(7, 1L);
+
+		assertEquals(PaisVersoes.getEtagDoPais(7, 2), versoes.getEtagConhecida(7));
+	}
+
+	@Test
+	void paisDeletadoNaoTemEtagMesmoComLeituraAtrasada() {
+		versoes.registrar(7, 1L);
+		versoes.alterar(PaisesAlteradosEvent.de(new PaisAlteradoEvent(PaisAlteradoEvent.Tipo.REMOVIDO, 7, null)));
+		versoes.registrar(7, 1L);
+
+		assertNull(versoes.getEtagConhecida(7));
+	}
+
+	@Test
+	void etagsSaoFracas() {
+		assertEquals("W/\"p7-3\"", PaisVersoes.getEtagDoPais(7, 3));
+		assertEquals(0, versoes.getEtagDaTabela().indexOf("W/\""));
+	}
+
+	private static Pais comVersao(Long versao) {
+		Pais pais = new Pais();
+		pais.setVersao(versao);
+		return pais;
+	}
+
+}
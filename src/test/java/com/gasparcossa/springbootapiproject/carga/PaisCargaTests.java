@@ -0,0 +1,331 @@
+package com.gasparcossa.springbootapiproject.carga;
+
+import static com.gasparcossa.springbootapiproject.PaisesDeTeste.REGIOES;
+import static com.gasparcossa.springbootapiproject.PaisesDeTeste.novoPais;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import com.gasparcossa.springbootapiproject.repository.PaisRepository;
+import com.gasparcossa.springbootapiproject.service.PaisService;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Teste de carga dos endpoints do PaisController. Fica fora do mvn test normal
+ * e corre com:
+ *
+ * mvn -Pcarga test -Dcarga.threads=16 -Dcarga.duracao-segundos=60
+ *
+ * Propriedades (todas opcionais): carga.paises, carga.threads,
+ * carga.aquecimento-segundos, carga.duracao-segundos, carga.taxa (pedidos por
+ * segundo no total, 0 para enviar o mais rapido possivel), carga.mix (pesos de
+ * cada endpoint).
+ *
+ * O resultado fica em target/carga-relatorio.json
+ */
+@Tag("carga")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT,
+		properties = "logging.level.com.gasparcossa=WARN")
+@ActiveProfiles("h2")
+class PaisCargaTests {
+
+	private static final String[] ENDPOINTS = { "readById", "readByRegiao", "readAll", "save", "update" };
+
+	private static final File RELATORIO = new File("target/carga-relatorio.json");
+
+	@LocalServerPort
+	private int porta;
+
+	@Autowired
+	private PaisService paisService;
+
+	@Autowired
+	private PaisRepository paisRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private final int paises = Integer.getInteger("carga.paises", 1000);
+	private final int threads = Integer.getInteger("carga.threads", 8);
+	private final int aquecimento = Integer.getInteger("carga.aquecimento-segundos", 5);
+	private final int duracao = Integer.getInteger("carga.duracao-segundos", 20);
+	private final int taxa = Integer.getInteger("carga.taxa", 0);
+	private final String mix = System.getProperty("carga.mix",
+			"readById=50,readByRegiao=15,readAll=15,save=10,update=10");
+
+	// Contador para gerar nomes e capitais que ainda nao existem
+	private final AtomicInteger proximoPais = new AtomicInteger();
+
+	private long[] ids;
+	private int[] pesos;
+
+	@Test
+	void cargaMista() throws Exception {
+		semear();
+		pesos = lerMix();
+
+		correr(aquecimento);
+		Map<String, Latencias> resultado = correr(duracao);
+
+		RELATORIO.getParentFile().mkdirs();
+		objectMapper.writerWithDefaultPrettyPrinter().writeValue(RELATORIO, gerarRelatorio(resultado));
+
+		for (int i = 0; i < ENDPOINTS.length; i++) {
+			Latencias latencias = resultado.get(ENDPOINTS[i]);
+			assertEquals(0, latencias.erros, ENDPOINTS[i] + " teve erros");
+			// Um endpoint com peso no mix tem de ter sido medido
+			if (pesos[i] > 0) {
+				assertTrue(latencias.tamanho > 0, ENDPOINTS[i] + " nao recebeu pedidos");
+			}
+		}
+	}
+
+	private void semear() {
+		paisRepository.deleteAllInBatch();
+		List<Pais> lote = new ArrayList<Pais>(paises);
+		for (int i = 0; i < paises; i++) {
+			lote.add(novoPais(proximoPais.getAndIncrement()));
+		}
+		List<Long> inseridos = paisService.savePaisesEmLote(lote).getIds();
+		ids = new long[inseridos.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = inseridos.get(i);
+		}
+	}
+
+	private int[] lerMix() {
+		int[] pesos = new int[ENDPOINTS.length];
+		for (String parte : mix.split(",")) {
+			String[] chaveValor = parte.trim().split("=");
+			int indice = Arrays.asList(ENDPOINTS).indexOf(chaveValor[0].trim());
+			if (indice < 0) {
+				throw new IllegalArgumentException("Endpoint desconhecido no carga.mix: " + chaveValor[0]);
+			}
+			pesos[indice] = Integer.parseInt(chaveValor[1].trim());
+		}
+		return pesos;
+	}
+
+	/**
+	 * Corre a carga durante os segundos informados e junta as latencias de todas
+	 * as threads por endpoint
+	 **/
+	private Map<String, Latencias> correr(int segundos) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		long inicio = System.nanoTime();
+		long fim = inicio + TimeUnit.SECONDS.toNanos(segundos);
+		List<Future<Map<String, Latencias>>> tarefas = new ArrayList<Future<Map<String, Latencias>>>();
+		try {
+			for (int t = 0; t < threads; t++) {
+				final int thread = t;
+				tarefas.add(executor.submit(() -> cliente(thread, inicio, fim)));
+			}
+			Map<String, Latencias> total = novasLatencias();
+			for (Future<Map<String, Latencias>> tarefa : tarefas) {
+				for (Map.Entry<String, Latencias> parcial : tarefa.get().entrySet()) {
+					total.get(parcial.getKey()).juntar(parcial.getValue());
+				}
+			}
+			for (Latencias latencias : total.values()) {
+				latencias.segundos = segundos;
+			}
+			return total;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Map<String, Latencias> cliente(int thread, long inicio, long fim) throws InterruptedException {
+		Map<String, Latencias> latencias = novasLatencias();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int somaDosPesos = 0;
+		for (int peso : pesos) {
+			somaDosPesos += peso;
+		}
+		// Com uma taxa fixa a latencia conta a partir de quando o pedido devia ter
+		// saido, para um servidor lento nao esconder a fila que criou
+		long intervalo = taxa > 0 ? TimeUnit.SECONDS.toNanos(threads) / taxa : 0;
+		long previsto = inicio + (intervalo * thread) / threads;
+
+		while (true) {
+			long agora = System.nanoTime();
+			if (intervalo > 0) {
+				if (previsto > agora) {
+					TimeUnit.NANOSECONDS.sleep(previsto - agora);
+				}
+				agora = previsto;
+				previsto += intervalo;
+			}
+			if (agora >= fim) {
+				return latencias;
+			}
+
+			int sorteio = random.nextInt(somaDosPesos);
+			int endpoint = 0;
+			while (sorteio >= pesos[endpoint]) {
+				sorteio -= pesos[endpoint++];
+			}
+			boolean sucesso;
+			try {
+				sucesso = pedir(ENDPOINTS[endpoint], random);
+			} catch (IOException ex) {
+				sucesso = false;
+			}
+			latencias.get(ENDPOINTS[endpoint]).registar(System.nanoTime() - agora, sucesso);
+		}
+	}
+
+	private boolean pedir(String endpoint, ThreadLocalRandom random) throws IOException {
+		long id = ids[random.nextInt(ids.length)];
+		switch (endpoint) {
+		case "readById":
+			return enviar("GET", "/readById/" + id, null);
+		case "readByRegiao":
+			return enviar("GET", "/readByRegiao/" + REGIOES[random.nextInt(REGIOES.length)], null);
+		case "readAll":
+			return enviar("GET", "/readAll?after=" + ids[random.nextInt(ids.length)] + "&limit=100", null);
+		case "save":
+			return enviar("POST", "/save", objectMapper.writeValueAsBytes(novoPais(proximoPais.getAndIncrement())));
+		default:
+			// Um novo nome e capital para cada atualizacao, para nao colidir com outros
+			// pedidos em paralelo
+			return enviar("PUT", "/update/" + id,
+					objectMapper.writeValueAsBytes(novoPais(proximoPais.getAndIncrement())));
+		}
+	}
+
+	private boolean enviar(String metodo, String caminho, byte[] corpo) throws IOException {
+		HttpURLConnection conexao = (HttpURLConnection) new URL("http://localhost:" + porta + caminho)
+				.openConnection();
+		conexao.setRequestMethod(metodo);
+		conexao.setRequestProperty("Accept", "application/json");
+		if (corpo != null) {
+			conexao.setDoOutput(true);
+			conexao.setRequestProperty("Content-Type", "application/json");
+			try (OutputStream saida = conexao.getOutputStream()) {
+				saida.write(corpo);
+			}
+		}
+		int status = conexao.getResponseCode();
+		InputStream entrada = status < 400 ? conexao.getInputStream() : conexao.getErrorStream();
+		// Ler o corpo todo deixa a conexao pronta para ser reutilizada pelo keep-alive
+		if (entrada != null) {
+			try (InputStream corpoDaResposta = entrada) {
+				byte[] buffer = new byte[8192];
+				while (corpoDaResposta.read(buffer) >= 0) {
+				}
+			}
+		}
+		return status < 400;
+	}
+
+	private Map<String, Object> gerarRelatorio(Map<String, Latencias> resultado) {
+		Map<String, Object> configuracao = new LinkedHashMap<String, Object>();
+		configuracao.put("paises", paises);
+		configuracao.put("threads", threads);
+		configuracao.put("aquecimentoSegundos", aquecimento);
+		configuracao.put("duracaoSegundos", duracao);
+		configuracao.put("taxa", taxa);
+		configuracao.put("mix", mix);
+
+		Map<String, Object> endpoints = new LinkedHashMap<String, Object>();
+		Latencias total = new Latencias();
+		total.segundos = duracao;
+		for (String endpoint : ENDPOINTS) {
+			Latencias latencias = resultado.get(endpoint);
+			endpoints.put(endpoint, latencias.resumo());
+			total.juntar(latencias);
+		}
+
+		Map<String, Object> relatorio = new LinkedHashMap<String, Object>();
+		relatorio.put("configuracao", configuracao);
+		relatorio.put("endpoints", endpoints);
+		relatorio.put("total", total.resumo());
+		return relatorio;
+	}
+
+	private static Map<String, Latencias> novasLatencias() {
+		Map<String, Latencias> latencias = new LinkedHashMap<String, Latencias>();
+		for (String endpoint : ENDPOINTS) {
+			latencias.put(endpoint, new Latencias());
+		}
+		return latencias;
+	}
+
+	/**
+	 * Latencias de um endpoint em nanossegundos. Cada thread tem as suas e so no
+	 * fim sao juntadas, para a medicao nao competir por um lock
+	 **/
+	private static class Latencias {
+
+		private long[] valores = new long[1024];
+		private int tamanho;
+		private long erros;
+		private int segundos;
+
+		void registar(long nanos, boolean sucesso) {
+			if (!sucesso) {
+				erros++;
+			}
+			if (tamanho == valores.length) {
+				valores = Arrays.copyOf(valores, tamanho * 2);
+			}
+			valores[tamanho++] = nanos;
+		}
+
+		void juntar(Latencias outras) {
+			for (int i = 0; i < outras.tamanho; i++) {
+				registar(outras.valores[i], true);
+			}
+			erros += outras.erros;
+		}
+
+		Map<String, Object> resumo() {
+			long[] ordenados = Arrays.copyOf(valores, tamanho);
+			Arrays.sort(ordenados);
+			Map<String, Object> resumo = new LinkedHashMap<String, Object>();
+			resumo.put("pedidos", tamanho);
+			resumo.put("erros", erros);
+			resumo.put("throughputPorSegundo", segundos > 0 ? (double) tamanho / segundos : 0);
+			resumo.put("p50Ms", percentil(ordenados, 0.50));
+			resumo.put("p95Ms", percentil(ordenados, 0.95));
+			resumo.put("p99Ms", percentil(ordenados, 0.99));
+			resumo.put("p999Ms", percentil(ordenados, 0.999));
+			resumo.put("maxMs", ordenados.length == 0 ? 0 : ordenados[ordenados.length - 1] / 1e6);
+			return resumo;
+		}
+
+		private static double percentil(long[] ordenados, double percentil) {
+			if (ordenados.length == 0) {
+				return 0;
+			}
+			int indice = (int) Math.ceil(percentil * ordenados.length) - 1;
+			return ordenados[Math.max(indice, 0)] / 1e6;
+		}
+	}
+
+}
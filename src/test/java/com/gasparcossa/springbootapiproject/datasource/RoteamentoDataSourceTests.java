@@ -0,0 +1,106 @@
+package com.gasparcossa.springbootapiproject.datasource;
+
+import static com.gasparcossa.springbootapiproject.PaisesDeTeste.novoPais;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.gasparcossa.springbootapiproject.cache.PaisConsultaCache;
+import com.gasparcossa.springbootapiproject.exception.RecursoNaoEncontradoException;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import com.gasparcossa.springbootapiproject.service.PaisService;
+import java.util.Collections;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * A primaria e a replica sao duas Bases H2 separadas, sem replicacao, assim
+ * cada leitura mostra de qual delas veio
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:primaria;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+		"pais.datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1;MODE=PostgreSQL" })
+@ActiveProfiles("h2")
+class RoteamentoDataSourceTests {
+
+	@Autowired
+	private PaisService paisService;
+
+	@Autowired
+	private PaisConsultaCache paisConsultaCache;
+
+	@Autowired
+	@Qualifier("replica")
+	private DataSource replica;
+
+	private JdbcTemplate naReplica;
+
+	@BeforeEach
+	void setUp() {
+		naReplica = new JdbcTemplate(replica);
+		naReplica.execute("create table if not exists pais (id bigint primary key, nome varchar(255), "
+				+ "capital varchar(255), regiao varchar(255), sub_regiao varchar(255), area double, "
+				+ "versao bigint default 0 not null)");
+		naReplica.update("delete from pais");
+	}
+
+	@AfterEach
+	void tearDown() {
+		ContextoDeRoteamento.limpar();
+	}
+
+	@Test
+	void leiturasVaoParaAReplica() {
+		naReplica.update("insert into pais values (900001, 'Angola', 'Luanda', 'Africa', 'Austral', 1246700, 0)");
+
+		assertEquals("Luanda", paisService.getPaisById(900001).getCapital());
+	}
+
+	@Test
+	void escritasVaoParaAPrimaria() {
+		Pais pais = paisService.savePais(novoPais("Mocambique", "Maputo"));
+
+		assertEquals(0, (int) naReplica.queryForObject("select count(*) from pais", Integer.class));
+		// A replica nunca recebe a escrita, entao a leitura somente de leitura nao a encontra
+		assertThrows(RecursoNaoEncontradoException.class, () -> paisService.getPaisById(pais.getId()));
+	}
+
+	@Test
+	void primariaForcadaLeDaPrimaria() {
+		Pais pais = paisService.savePais(novoPais("Namibia", "Windhoek"));
+
+		ContextoDeRoteamento.forcarPrimaria();
+		assertEquals("Windhoek", paisService.getPaisById(pais.getId()).getCapital());
+	}
+
+	@Test
+	void leituraDaReplicaLogoDepoisDeUmaEscritaNaoEntraNoCache() {
+		Pais pais = paisService.savePais(novoPais("Angola", "Luanda"));
+		// A replica ainda tem o pais como era antes da escrita
+		naReplica.update("insert into pais values (?, 'Angola', 'Velha', 'Africa', 'Austral', 1000, 0)", pais.getId());
+		long tamanho = paisConsultaCache.getEstatisticas().get("tamanho");
+
+		assertEquals("Velha", paisService.getAllPaisesByNome("Angola").get(0).getCapital());
+		assertEquals(tamanho, (long) paisConsultaCache.getEstatisticas().get("tamanho"));
+
+		ContextoDeRoteamento.forcarPrimaria();
+		assertEquals("Luanda", paisService.getAllPaisesByNome("Angola").get(0).getCapital());
+	}
+
+	@Test
+	void primariaForcadaIgnoraOCache() {
+		paisService.savePais(novoPais("Zambia", "Lusaka"));
+		Pais antigo = novoPais("Zambia", "Velha");
+		paisConsultaCache.obter("nome", "Zambia", () -> Collections.singletonList(antigo));
+
+		ContextoDeRoteamento.forcarPrimaria();
+		assertEquals("Lusaka", paisService.getAllPaisesByNome("Zambia").get(0).getCapital());
+	}
+
+}
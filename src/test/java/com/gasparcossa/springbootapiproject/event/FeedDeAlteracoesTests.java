@@ -0,0 +1,213 @@
+package com.gasparcossa.springbootapiproject.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.gasparcossa.springbootapiproject.dto.Alteracao;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+class FeedDeAlteracoesTests {
+
+	private final List<EmitterDeTeste> emitters = new CopyOnWriteArrayList<EmitterDeTeste>();
+	private FeedDeAlteracoes feed;
+	private String epoca;
+
+	@BeforeEach
+	void setUp() {
+		feed = new FeedDeAlteracoes() {
+			@Override
+			SseEmitter criarEmitter() {
+				EmitterDeTeste emitter = new EmitterDeTeste();
+				emitters.add(emitter);
+				return emitter;
+			}
+		};
+		ReflectionTestUtils.setField(feed, "capacidade", 5);
+		ReflectionTestUtils.setField(feed, "filaPorCliente", 3);
+		ReflectionTestUtils.setField(feed, "maximoClientes", 10);
+		ReflectionTestUtils.setField(feed, "timeout", 60000L);
+		ReflectionTestUtils.setField(feed, "threads", 1);
+		ReflectionTestUtils.setField(feed, "timeoutEnvio", 50L);
+		feed.iniciar();
+		epoca = (String) ReflectionTestUtils.getField(feed, "epoca");
+	}
+
+	@AfterEach
+	void tearDown() {
+		for (EmitterDeTeste emitter : emitters) {
+			emitter.liberar.countDown();
+		}
+		feed.parar();
+	}
+
+	@Test
+	void clienteInscritoRecebeAsAlteracoesNaOrdem() throws Exception {
+		EmitterDeTeste emitter = (EmitterDeTeste) feed.inscrever(null);
+
+		publicar(1);
+		publicar(2);
+
+		esperarAte(() -> emitter.recebidas.size() == 2);
+		assertEquals(sequencias(1, 2), sequencias(emitter.recebidas));
+		assertEquals(epoca + ":2", emitter.ultimoId);
+	}
+
+	@Test
+	void lastEventIdReenviaOQueOClientePerdeuDoBuffer() throws Exception {
+		for (int i = 1; i <= 8; i++) {
+			publicar(i);
+		}
+
+		EmitterDeTeste emitter = (EmitterDeTeste) feed.inscrever(epoca + ":5");
+
+		esperarAte(() -> emitter.recebidas.size() == 3);
+		assertEquals(sequencias(6, 7, 8), sequencias(emitter.recebidas));
+		assertEquals(8, feed.getUltimaSequencia());
+	}
+
+	@Test
+	void lastEventIdForaDoBufferOuDeOutraExecucaoRecebeReinicio() throws Exception {
+		for (int i = 1; i <= 8; i++) {
+			publicar(i);
+		}
+
+		// O buffer guarda so as ultimas 5 alteracoes
+		EmitterDeTeste antigo = (EmitterDeTeste) feed.inscrever(epoca + ":2");
+		EmitterDeTeste outraExecucao = (EmitterDeTeste) feed.inscrever("outra:7");
+
+		esperarAte(() -> antigo.recebidas.size() == 1 && outraExecucao.recebidas.size() == 1);
+		assertReinicio(antigo, 8);
+		assertReinicio(outraExecucao, 8);
+	}
+
+	@Test
+	void loteMaiorQueAFilaEnviaReinicioSemDesligarOCliente() throws Exception {
+		EmitterDeTeste emitter = (EmitterDeTeste) feed.inscrever(null);
+
+		List<PaisAlteradoEvent> lote = new ArrayList<PaisAlteradoEvent>();
+		for (int i = 1; i <= 4; i++) {
+			lote.add(new PaisAlteradoEvent(PaisAlteradoEvent.Tipo.CRIADO, i, null));
+		}
+		feed.publicar(new PaisesAlteradosEvent(lote));
+		publicar(5);
+
+		esperarAte(() -> emitter.recebidas.size() == 2);
+		assertReinicio(emitter, 4);
+		assertEquals(5, emitter.recebidas.get(1).getSequencia());
+		assertEquals(1, feed.getClientes());
+		assertEquals(0, feed.getClientesDesligados());
+	}
+
+	@Test
+	void envioParadoDesligaOClienteSemPrenderOsOutros() throws Exception {
+		EmitterDeTeste parado = (EmitterDeTeste) feed.inscrever(null);
+		parado.bloquear = true;
+		publicar(1);
+		esperarAte(() -> parado.enviando);
+
+		Thread.sleep(100);
+		feed.desligarEnviosParados();
+		assertEquals(1, feed.getClientesDesligados());
+		assertEquals(0, feed.getClientes());
+
+		// A unica thread do executor continua presa no envio parado
+		EmitterDeTeste outro = (EmitterDeTeste) feed.inscrever(null);
+		publicar(2);
+		esperarAte(() -> outro.recebidas.size() == 1);
+		assertEquals(sequencias(2), sequencias(outro.recebidas));
+	}
+
+	private void publicar(long id) {
+		feed.publicar(PaisesAlteradosEvent.de(new PaisAlteradoEvent(PaisAlteradoEvent.Tipo.ATUALIZADO, id, null)));
+	}
+
+	private static void assertReinicio(EmitterDeTeste emitter, long sequencia) {
+		assertEquals("REINICIO", emitter.recebidas.get(0).getTipo());
+		assertEquals(sequencia, emitter.recebidas.get(0).getSequencia());
+		assertTrue(emitter.reinicios > 0);
+	}
+
+	private static List<Long> sequencias(long... sequencias) {
+		List<Long> lista = new ArrayList<Long>();
+		for (long sequencia : sequencias) {
+			lista.add(sequencia);
+		}
+		return lista;
+	}
+
+	private static List<Long> sequencias(List<Alteracao> alteracoes) {
+		List<Long> lista = new ArrayList<Long>();
+		for (Alteracao alteracao : alteracoes) {
+			lista.add(alteracao.getSequencia());
+		}
+		return lista;
+	}
+
+	private static void esperarAte(BooleanSupplier condicao) throws InterruptedException {
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condicao.getAsBoolean() && System.nanoTime() < limite) {
+			Thread.sleep(5);
+		}
+	}
+
+	/**
+	 * Guarda o que seria escrito na resposta. Com bloquear, o envio fica parado
+	 * ate o fim do teste, mesmo se a thread for interrompida, como uma escrita
+	 * num socket que o cliente deixou de ler
+	 */
+	private static class EmitterDeTeste extends SseEmitter {
+
+		final List<Alteracao> recebidas = new CopyOnWriteArrayList<Alteracao>();
+		final CountDownLatch liberar = new CountDownLatch(1);
+		volatile boolean bloquear;
+		volatile boolean enviando;
+		volatile String ultimoId;
+		volatile int reinicios;
+
+		@Override
+		public void send(SseEventBuilder evento) throws IOException {
+			if (bloquear) {
+				enviando = true;
+				while (liberar.getCount() > 0) {
+					try {
+						liberar.await();
+					} catch (InterruptedException ex) {
+						// Ignora a interrupcao, como o socket bloqueado
+					}
+				}
+				throw new IOException("Cliente parado");
+			}
+			for (ResponseBodyEmitter.DataWithMediaType parte : evento.build()) {
+				Object dado = parte.getData();
+				if (dado instanceof Alteracao) {
+					recebidas.add((Alteracao) dado);
+				} else if (dado instanceof String) {
+					ler((String) dado);
+				}
+			}
+		}
+
+		private void ler(String texto) {
+			for (String linha : texto.split("\n")) {
+				if (linha.startsWith("id:")) {
+					ultimoId = linha.substring(3);
+				} else if (linha.equals("event:reset")) {
+					reinicios++;
+				}
+			}
+		}
+	}
+
+}
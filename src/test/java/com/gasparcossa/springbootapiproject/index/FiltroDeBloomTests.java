@@ -0,0 +1,53 @@
+package com.gasparcossa.springbootapiproject.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class FiltroDeBloomTests {
+
+	private static final int ELEMENTOS = 10000;
+
+	@Test
+	void valoresAdicionadosPodemSempreExistir() {
+		FiltroDeBloom filtro = new FiltroDeBloom(ELEMENTOS, 0.01);
+		for (int i = 0; i < ELEMENTOS; i++) {
+			filtro.adicionar("Pais" + i);
+		}
+
+		for (int i = 0; i < ELEMENTOS; i++) {
+			assertTrue(filtro.podeConter("Pais" + i));
+		}
+		assertEquals(ELEMENTOS, filtro.getElementos());
+	}
+
+	@Test
+	void falsosPositivosFicamPertoDaTaxaPedida() {
+		FiltroDeBloom filtro = new FiltroDeBloom(ELEMENTOS, 0.01);
+		for (int i = 0; i < ELEMENTOS; i++) {
+			filtro.adicionar("Pais" + i);
+		}
+
+		int falsosPositivos = 0;
+		for (int i = 0; i < ELEMENTOS; i++) {
+			if (filtro.podeConter("Ausente" + i)) {
+				falsosPositivos++;
+			}
+		}
+		double taxa = (double) falsosPositivos / ELEMENTOS;
+		assertTrue(taxa < 0.02, "Taxa de falsos positivos: " + taxa);
+		assertTrue(filtro.getTaxaDeFalsosPositivosEstimada() < 0.02);
+	}
+
+	@Test
+	void filtroVazioNaoContemNada() {
+		FiltroDeBloom filtro = new FiltroDeBloom(100, 0.01);
+
+		assertFalse(filtro.podeConter("Angola"));
+		assertFalse(filtro.podeConter(""));
+		assertEquals(0, filtro.getTaxaDeFalsosPositivosEstimada(), 0);
+	}
+
+}
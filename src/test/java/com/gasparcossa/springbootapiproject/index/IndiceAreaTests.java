@@ -0,0 +1,65 @@
+package com.gasparcossa.springbootapiproject.index;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class IndiceAreaTests {
+
+	private final IndiceArea indice = IndiceArea.de(new long[] { 1, 2, 3, 4, 5 },
+			new double[] { 500, 100, 300, 100, 900 });
+
+	@Test
+	void ordenaPelaAreaEPeloIdNoEmpate() {
+		assertArrayEquals(new long[] { 2, 4, 3 }, indice.menores(3));
+		assertArrayEquals(new long[] { 5, 1 }, indice.maiores(2));
+		assertArrayEquals(new long[] { 2, 4, 3, 1, 5 }, indice.menores(10));
+	}
+
+	@Test
+	void idsEntreIncluiOsLimites() {
+		assertArrayEquals(new long[] { 2, 4, 3 }, indice.idsEntre(100, 300, 10));
+		assertArrayEquals(new long[] { 2 }, indice.idsEntre(100, 300, 1));
+		assertArrayEquals(new long[0], indice.idsEntre(301, 499, 10));
+		assertArrayEquals(new long[0], indice.idsEntre(900, 100, 10));
+	}
+
+	@Test
+	void alteracaoMoveOPaisENaoMudaOOriginal() {
+		IndiceArea alterado = indice.com(5, 50.0).com(3, null).com(6, 100.0);
+
+		assertArrayEquals(new long[] { 5, 2, 4, 6, 1 }, alterado.menores(10));
+		assertEquals(5, alterado.getTamanho());
+		assertArrayEquals(new long[] { 2, 4, 3, 1, 5 }, indice.menores(10));
+	}
+
+	@Test
+	void loteDaOMesmoResultadoQueAsAlteracoesUmaAUma() {
+		Random aleatorio = new Random(42);
+		long[] ids = new long[1000];
+		double[] areas = new double[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = i + 1;
+			areas[i] = aleatorio.nextInt(200);
+		}
+		IndiceArea original = IndiceArea.de(ids, areas);
+
+		Map<Long, Double> lote = new HashMap<Long, Double>();
+		IndiceArea umAUm = original;
+		for (int i = 0; i < 300; i++) {
+			long id = 1 + aleatorio.nextInt(1500);
+			Double area = aleatorio.nextInt(4) == 0 ? null : Double.valueOf(aleatorio.nextInt(200));
+			lote.put(id, area);
+			umAUm = umAUm.com(id, area);
+		}
+		IndiceArea emLote = original.com(lote);
+
+		assertEquals(umAUm.getTamanho(), emLote.getTamanho());
+		assertArrayEquals(umAUm.menores(emLote.getTamanho()), emLote.menores(emLote.getTamanho()));
+	}
+
+}
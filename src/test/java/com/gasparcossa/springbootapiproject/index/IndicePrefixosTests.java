@@ -0,0 +1,72 @@
+package com.gasparcossa.springbootapiproject.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.gasparcossa.springbootapiproject.dto.Sugestao;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class IndicePrefixosTests {
+
+	private final IndicePrefixos indice = IndicePrefixos.de(new long[] { 1, 2, 3, 4, 5 },
+			new String[] { "Angola", "São Tomé", "Argélia", "Andorra", "Sérvia" });
+
+	@Test
+	void ignoraAcentosEMaiusculas() {
+		assertEquals(valores("São Tomé", "Sérvia"), valores(indice.comPrefixo("s", 10)));
+		assertEquals(valores("São Tomé"), valores(indice.comPrefixo("SAO", 10)));
+		assertEquals(valores("Argélia"), valores(indice.comPrefixo("argel", 10)));
+	}
+
+	@Test
+	void devolveEmOrdemAlfabeticaAteOLimite() {
+		assertEquals(valores("Andorra", "Angola"), valores(indice.comPrefixo("a", 2)));
+		assertTrue(indice.comPrefixo("Brasil", 10).isEmpty());
+	}
+
+	@Test
+	void alteracoesMantemAOrdem() {
+		IndicePrefixos alterado = indice.com(1, "Albânia").com(6, "Alemanha").com(3, null);
+
+		assertEquals(valores("Albânia", "Alemanha", "Andorra"), valores(alterado.comPrefixo("a", 10)));
+		assertEquals(6, alterado.comPrefixo("alem", 1).get(0).getId());
+		// O indice original nao muda
+		assertEquals(valores("Andorra", "Angola", "Argélia"), valores(indice.comPrefixo("a", 10)));
+	}
+
+	@Test
+	void loteAplicaTodasAsAlteracoesDeUmaVez() {
+		Map<Long, String> lote = new HashMap<Long, String>();
+		lote.put(1L, "Albânia");
+		lote.put(6L, "Alemanha");
+		lote.put(3L, null);
+		lote.put(7L, null);
+
+		IndicePrefixos alterado = indice.com(lote);
+
+		assertEquals(valores("Albânia", "Alemanha", "Andorra"), valores(alterado.comPrefixo("a", 10)));
+		assertEquals(5, alterado.getTamanho());
+		assertEquals(valores("São Tomé", "Sérvia"), valores(alterado.comPrefixo("s", 10)));
+	}
+
+	private static List<String> valores(String... valores) {
+		List<String> lista = new ArrayList<String>();
+		for (String valor : valores) {
+			lista.add(valor);
+		}
+		return lista;
+	}
+
+	private static List<String> valores(List<Sugestao> sugestoes) {
+		List<String> lista = new ArrayList<String>();
+		for (Sugestao sugestao : sugestoes) {
+			lista.add(sugestao.getValor());
+		}
+		return lista;
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.gasparcossa.springbootapiproject.index;
+
+import static com.gasparcossa.springbootapiproject.PaisesDeTeste.novoPais;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.gasparcossa.springbootapiproject.dto.EstatisticaRegiao;
+import com.gasparcossa.springbootapiproject.event.PaisAlteradoEvent;
+import com.gasparcossa.springbootapiproject.event.PaisesAlteradosEvent;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import com.gasparcossa.springbootapiproject.repository.PaisRepository;
+import com.gasparcossa.springbootapiproject.service.PaisService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class PaisEstatisticasTests {
+
+	@Autowired
+	private PaisService paisService;
+
+	@Autowired
+	private PaisRepository paisRepository;
+
+	@Autowired
+	private PaisEstatisticas paisEstatisticas;
+
+	@BeforeEach
+	void setUp() {
+		paisRepository.deleteAllInBatch();
+		paisEstatisticas.reconstruir(paisRepository.findAll(),
+				() -> new PaisesAlteradosEvent(Collections.<PaisAlteradoEvent>emptyList()));
+	}
+
+	@Test
+	void escritasAtualizamAsEstatisticasSemReconstruir() {
+		paisService.savePais(novoPais("Angola", "Luanda", "Africa", "Austral", 1000));
+		Pais brasil = paisService.savePais(novoPais("Brasil", "Brasilia", "America", "Sul", 3000));
+		Pais chile = paisService.savePais(novoPais("Chile", "Santiago", "America", "Sul", 1000));
+
+		assertEquals(paisService.getEstatisticasPorRegiao(), agrupadasPelaBaseDeDados());
+		assertEstatistica(paisService.getEstatisticasPorRegiao().get(1), "America", 2, 4000);
+
+		// Muda de regiao e de sub-regiao
+		brasil.setRegiao("Africa");
+		brasil.setSubRegiao("Austral");
+		paisService.updatePais(brasil, brasil.getId());
+		paisService.deletePais(chile.getId());
+
+		List<EstatisticaRegiao> porRegiao = paisService.getEstatisticasPorRegiao();
+		assertEquals(1, porRegiao.size());
+		assertEstatistica(porRegiao.get(0), "Africa", 2, 4000);
+		assertEquals(porRegiao, agrupadasPelaBaseDeDados());
+		assertEstatistica(paisService.getEstatisticasPorSubRegiao().get(0), "Austral", 2, 4000);
+	}
+
+	// O GROUP BY usado antes das estatisticas em memoria serem construidas
+	private List<EstatisticaRegiao> agrupadasPelaBaseDeDados() {
+		List<EstatisticaRegiao> agrupadas = new ArrayList<EstatisticaRegiao>();
+		for (Object[] linha : paisRepository.agruparPorRegiao()) {
+			long paises = (Long) linha[1];
+			double areaTotal = (Double) linha[2];
+			agrupadas.add(new EstatisticaRegiao((String) linha[0], paises, areaTotal, areaTotal / paises));
+		}
+		return agrupadas;
+	}
+
+	private static void assertEstatistica(EstatisticaRegiao estatistica, String nome, long paises, double areaTotal) {
+		assertEquals(nome, estatistica.getNome());
+		assertEquals(paises, estatistica.getPaises());
+		assertEquals(areaTotal, estatistica.getAreaTotal(), 1e-9);
+		assertEquals(areaTotal / paises, estatistica.getAreaMedia(), 1e-9);
+	}
+
+}
@@ -0,0 +1,74 @@
+package com.gasparcossa.springbootapiproject.index;
+
+import static com.gasparcossa.springbootapiproject.PaisesDeTeste.novoPais;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.gasparcossa.springbootapiproject.event.PaisAlteradoEvent;
+import com.gasparcossa.springbootapiproject.event.PaisesAlteradosEvent;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class PaisFiltroDeMembrosTests {
+
+	private PaisFiltroDeMembros filtro;
+
+	@BeforeEach
+	void setUp() {
+		filtro = new PaisFiltroDeMembros();
+		ReflectionTestUtils.setField(filtro, "ativo", true);
+		ReflectionTestUtils.setField(filtro, "elementosEsperados", 100L);
+		ReflectionTestUtils.setField(filtro, "taxaDeFalsosPositivos", 0.01);
+	}
+
+	@Test
+	void reconstrucaoLimpaOsValoresRemovidos() {
+		filtro.reconstruir(lista(novoPais("Angola", "Luanda")), PaisFiltroDeMembrosTests::semAlteracoes);
+		filtro.atualizar(brasilCriado());
+
+		assertTrue(filtro.podeExistir("nome", "Brasil"));
+		assertFalse(filtro.podeExistir("capital", "Paris"));
+		assertEquals(1, filtro.getConsultasEvitadas());
+
+		filtro.reconstruir(lista(novoPais("Angola", "Luanda")), PaisFiltroDeMembrosTests::semAlteracoes);
+		assertTrue(filtro.podeExistir("nome", "Angola"));
+		assertFalse(filtro.podeExistir("nome", "Brasil"));
+	}
+
+	@Test
+	void reconstrucaoReaplicaAsAlteracoesPendentes() {
+		// O Brasil foi confirmado durante a leitura e nao esta nos paises lidos
+		filtro.reconstruir(lista(novoPais("Angola", "Luanda")), PaisFiltroDeMembrosTests::brasilCriado);
+
+		assertTrue(filtro.podeExistir("nome", "Brasil"));
+		assertTrue(filtro.podeExistir("capital", "Brasilia"));
+	}
+
+	@Test
+	void desligadoTudoPodeExistir() {
+		ReflectionTestUtils.setField(filtro, "ativo", false);
+		filtro.reconstruir(lista(novoPais("Angola", "Luanda")), PaisFiltroDeMembrosTests::semAlteracoes);
+
+		assertTrue(filtro.podeExistir("nome", "Brasil"));
+	}
+
+	private static PaisesAlteradosEvent brasilCriado() {
+		return PaisesAlteradosEvent
+				.de(new PaisAlteradoEvent(PaisAlteradoEvent.Tipo.CRIADO, 2, novoPais("Brasil", "Brasilia")));
+	}
+
+	private static PaisesAlteradosEvent semAlteracoes() {
+		return new PaisesAlteradosEvent(Collections.<PaisAlteradoEvent>emptyList());
+	}
+
+	private static List<Pais> lista(Pais pais) {
+		return new ArrayList<Pais>(Collections.singletonList(pais));
+	}
+
+}
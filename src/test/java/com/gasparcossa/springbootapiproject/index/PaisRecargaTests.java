@@ -0,0 +1,144 @@
+package com.gasparcossa.springbootapiproject.index;
+
+import static com.gasparcossa.springbootapiproject.PaisesDeTeste.novoPais;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.gasparcossa.springbootapiproject.cache.PaisVersoes;
+import com.gasparcossa.springbootapiproject.event.PaisAlteradoEvent;
+import com.gasparcossa.springbootapiproject.event.PaisesAlteradosEvent;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import com.gasparcossa.springbootapiproject.repository.PaisRepository;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class PaisRecargaTests {
+
+	private PaisRepository paisRepository;
+	private PaisReadModel paisReadModel;
+	private PaisIndiceArea paisIndiceArea;
+	private PaisAutocompletar paisAutocompletar;
+	private PaisEstatisticas paisEstatisticas;
+	private PaisFiltroDeMembros paisFiltroDeMembros;
+	private PaisRecarga recarga;
+
+	@BeforeEach
+	void setUp() {
+		paisRepository = mock(PaisRepository.class);
+		paisReadModel = new PaisReadModel();
+		ReflectionTestUtils.setField(paisReadModel, "ativo", true);
+		paisIndiceArea = new PaisIndiceArea();
+		paisAutocompletar = new PaisAutocompletar();
+		paisEstatisticas = new PaisEstatisticas();
+		paisFiltroDeMembros = new PaisFiltroDeMembros();
+		ReflectionTestUtils.setField(paisFiltroDeMembros, "ativo", true);
+		ReflectionTestUtils.setField(paisFiltroDeMembros, "elementosEsperados", 100L);
+		ReflectionTestUtils.setField(paisFiltroDeMembros, "taxaDeFalsosPositivos", 0.01);
+
+		recarga = new PaisRecarga();
+		ReflectionTestUtils.setField(recarga, "paisRepository", paisRepository);
+		ReflectionTestUtils.setField(recarga, "paisReadModel", paisReadModel);
+		ReflectionTestUtils.setField(recarga, "paisIndiceArea", paisIndiceArea);
+		ReflectionTestUtils.setField(recarga, "paisAutocompletar", paisAutocompletar);
+		ReflectionTestUtils.setField(recarga, "paisEstatisticas", paisEstatisticas);
+		ReflectionTestUtils.setField(recarga, "paisFiltroDeMembros", paisFiltroDeMembros);
+		ReflectionTestUtils.setField(recarga, "paisVersoes", new PaisVersoes());
+	}
+
+	@Test
+	void umaLeituraReconstroiTodosOsIndices() {
+		when(paisRepository.findAll()).thenReturn(lista(pais(1, "Angola", "Luanda")));
+
+		recarga.recarregar();
+
+		verify(paisRepository, times(1)).findAll();
+		assertIndicesCom(1, "Angola", 1);
+	}
+
+	@Test
+	void estatisticasSoSaoFeitasNoArranque() {
+		when(paisRepository.findAll()).thenReturn(lista(pais(1, "Angola", "Luanda")));
+		recarga.recarregar();
+		List<Pais> paises = lista(pais(1, "Angola", "Luanda"));
+		paises.add(pais(3, "Chile", "Santiago"));
+		when(paisRepository.findAll()).thenReturn(paises);
+
+		recarga.recarregar();
+
+		assertEquals(2, paisIndiceArea.getIndice().getTamanho());
+		assertEquals(1, paisEstatisticas.getPorRegiao().get(0).getPaises());
+	}
+
+	@Test
+	void escritaConfirmadaDuranteALeituraNaoEsperaNemSePerde() throws Exception {
+		when(paisRepository.findAll()).thenReturn(lista(pais(1, "Angola", "Luanda")));
+		recarga.recarregar();
+
+		// A segunda leitura comeca antes do commit do Brasil e nao o ve
+		CountDownLatch lendo = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		when(paisRepository.findAll()).thenAnswer(invocacao -> {
+			lendo.countDown();
+			liberar.await(5, TimeUnit.SECONDS);
+			return lista(pais(1, "Angola", "Luanda"));
+		});
+		Thread leitura = new Thread(recarga::recarregar);
+		leitura.start();
+		assertTrue(lendo.await(5, TimeUnit.SECONDS));
+
+		// Os listeners na ordem em que correm depois do commit
+		PaisesAlteradosEvent brasil = PaisesAlteradosEvent
+				.de(new PaisAlteradoEvent(PaisAlteradoEvent.Tipo.CRIADO, 2, pais(2, "Brasil", "Brasilia")));
+		Thread escrita = new Thread(() -> {
+			recarga.registrar(brasil);
+			paisReadModel.aplicar(brasil);
+			paisIndiceArea.aplicar(brasil);
+			paisAutocompletar.aplicar(brasil);
+			paisEstatisticas.aplicar(brasil);
+			paisFiltroDeMembros.atualizar(brasil);
+		});
+		escrita.start();
+		escrita.join(5000);
+		// A escrita terminou com a leitura ainda parada
+		assertFalse(escrita.isAlive());
+		assertTrue(leitura.isAlive());
+
+		liberar.countDown();
+		leitura.join(5000);
+
+		assertIndicesCom(2, "Brasil", 2);
+		assertIndicesCom(1, "Angola", 2);
+	}
+
+	private void assertIndicesCom(long id, String nome, int paises) {
+		assertNotNull(paisReadModel.getSnapshot().getPorId(id));
+		assertEquals(paises, paisReadModel.getSnapshot().getTamanho());
+		assertEquals(paises, paisIndiceArea.getIndice().getTamanho());
+		assertEquals(id, paisAutocompletar.getIndice("nome").comPrefixo(nome, 1).get(0).getId());
+		assertEquals(paises, paisEstatisticas.getPorRegiao().get(0).getPaises());
+		assertTrue(paisFiltroDeMembros.podeExistir("nome", nome));
+	}
+
+	private static Pais pais(long id, String nome, String capital) {
+		Pais pais = novoPais(nome, capital);
+		pais.setId(id);
+		return pais;
+	}
+
+	private static List<Pais> lista(Pais pais) {
+		return new ArrayList<Pais>(Collections.singletonList(pais));
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.gasparcossa.springbootapiproject.index;
+
+import static com.gasparcossa.springbootapiproject.PaisesDeTeste.novoPais;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.gasparcossa.springbootapiproject.event.PaisAlteradoEvent;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PaisSnapshotTests {
+
+	private final PaisSnapshot snapshot = PaisSnapshot.de(Arrays.asList(pais(3, "Angola", "Africa", 1246700),
+			pais(1, "Portugal", "Europe", 92090), pais(2, "Brasil", "Americas", 8515767)));
+
+	@Test
+	void indexaPorIdAtributoEArea() {
+		assertEquals(ids(1, 2, 3), ids(snapshot.getTodos()));
+		assertEquals("Angola", snapshot.getPorId(3).getNome());
+		assertEquals(ids(1), ids(snapshot.getPorAtributo("regiao", "Europe")));
+		assertTrue(snapshot.getPorAtributo("regiao", "Oceania").isEmpty());
+		assertEquals(ids(2), ids(snapshot.getPorArea(8515767)));
+		assertEquals(ids(2, 3), ids(snapshot.getPaginaDepois(1, 10)));
+	}
+
+	@Test
+	void listasDevolvidasNaoPodemSerAlteradas() {
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.getTodos().clear());
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.getPorAtributo("regiao", "Europe").clear());
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.getPorArea(92090).clear());
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.getPaginaDepois(0, 10).clear());
+	}
+
+	@Test
+	void guardaCopiasDosPaises() {
+		Pais original = pais(4, "Chile", "Americas", 756102);
+		PaisSnapshot comChile = PaisSnapshot.de(Arrays.asList(original));
+
+		original.setNome("Alterado");
+
+		assertEquals("Chile", comChile.getPorId(4).getNome());
+	}
+
+	@Test
+	void aplicaUmLoteDeAlteracoesDeUmaVez() {
+		PaisSnapshot alterado = snapshot.com(Arrays.asList(
+				new PaisAlteradoEvent(PaisAlteradoEvent.Tipo.CRIADO, 4, pais(4, "Chile", "Americas", 756102)),
+				new PaisAlteradoEvent(PaisAlteradoEvent.Tipo.ATUALIZADO, 3, pais(3, "Angola", "Africa", 1)),
+				new PaisAlteradoEvent(PaisAlteradoEvent.Tipo.REMOVIDO, 1, null),
+				new PaisAlteradoEvent(PaisAlteradoEvent.Tipo.ATUALIZADO, 4, pais(4, "Chile", "Americas", 2))));
+
+		assertEquals(ids(2, 3, 4), ids(alterado.getTodos()));
+		assertNull(alterado.getPorId(1));
+		// Vale a ultima alteracao de cada pais
+		assertEquals(ids(4), ids(alterado.getPorArea(2)));
+		assertEquals(ids(2, 4), ids(alterado.getPorAtributo("regiao", "Americas")));
+		assertEquals(snapshot.getCriadoEm(), alterado.getCriadoEm());
+		// O snapshot original nao muda
+		assertEquals(ids(1, 2, 3), ids(snapshot.getTodos()));
+		assertEquals(ids(3), ids(snapshot.getPorArea(1246700)));
+	}
+
+	private static Pais pais(long id, String nome, String regiao, double area) {
+		Pais pais = novoPais(nome, "Capital" + nome, regiao, regiao, area);
+		pais.setId(id);
+		return pais;
+	}
+
+	private static List<Long> ids(long... ids) {
+		List<Long> lista = new ArrayList<Long>();
+		for (long id : ids) {
+			lista.add(id);
+		}
+		return lista;
+	}
+
+	private static List<Long> ids(List<Pais> paises) {
+		List<Long> lista = new ArrayList<Long>();
+		for (Pais pais : paises) {
+			lista.add(pais.getId());
+		}
+		return lista;
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.gasparcossa.springbootapiproject.limiter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class LimitadorAimdTests {
+
+	private static final long RAPIDO = TimeUnit.MILLISECONDS.toNanos(10);
+	private static final long LENTO = TimeUnit.MILLISECONDS.toNanos(500);
+
+	@Test
+	void rejeitaAcimaDoLimite() {
+		LimitadorAimd limitador = new LimitadorAimd(2, 1, 10, 100, 0.5);
+
+		assertTrue(limitador.adquirir());
+		assertTrue(limitador.adquirir());
+		assertFalse(limitador.adquirir());
+		assertEquals(1, limitador.getRejeitados());
+
+		limitador.libertar(RAPIDO, false);
+		assertTrue(limitador.adquirir());
+	}
+
+	@Test
+	void pedidoLentoReduzOLimiteUmaVezPorJanela() {
+		LimitadorAimd limitador = new LimitadorAimd(10, 1, 20, 100, 0.5);
+		for (int i = 0; i < 3; i++) {
+			limitador.adquirir();
+		}
+
+		limitador.libertar(LENTO, false);
+		limitador.libertar(LENTO, false);
+		limitador.libertar(RAPIDO, true);
+
+		assertEquals(5, limitador.getLimite());
+		assertEquals(0, limitador.getEmUso());
+	}
+
+	@Test
+	void pedidosRapidosComOLimiteEmUsoSobemOLimite() {
+		LimitadorAimd limitador = new LimitadorAimd(4, 1, 20, 100, 0.5);
+
+		for (int rodada = 0; rodada < 20; rodada++) {
+			int adquiridos = 0;
+			while (limitador.adquirir()) {
+				adquiridos++;
+			}
+			for (int i = 0; i < adquiridos; i++) {
+				limitador.libertar(RAPIDO, false);
+			}
+		}
+
+		assertTrue(limitador.getLimite() > 4, "Limite: " + limitador.getLimite());
+		assertTrue(limitador.getLimite() <= 20);
+	}
+
+	@Test
+	void pedidosRapidosComOLimiteParadoNaoSobemOLimite() {
+		LimitadorAimd limitador = new LimitadorAimd(10, 1, 20, 100, 0.5);
+
+		for (int i = 0; i < 100; i++) {
+			limitador.adquirir();
+			limitador.libertar(RAPIDO, false);
+		}
+
+		assertEquals(10, limitador.getLimite());
+	}
+
+}
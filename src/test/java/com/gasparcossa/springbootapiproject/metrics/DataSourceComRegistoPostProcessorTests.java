@@ -0,0 +1,106 @@
+package com.gasparcossa.springbootapiproject.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class DataSourceComRegistoPostProcessorTests {
+
+	private final ContadorDeConsultas contador = new ContadorDeConsultas();
+	private RegistoDeSql registo;
+	private BlockingQueue<Map<String, Object>> fila;
+	private DataSource dataSource;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		registo = new RegistoDeSql();
+		ReflectionTestUtils.setField(registo, "objectMapper", new ObjectMapper());
+		// Com limiar 0 todos os statements sao lentos e entram na fila
+		ReflectionTestUtils.setField(registo, "limiarMs", 0L);
+		ReflectionTestUtils.setField(registo, "orcamentoPorPedido", 10);
+		ReflectionTestUtils.setField(registo, "repeticoesPorPedido", 2);
+		fila = new ArrayBlockingQueue<Map<String, Object>>(100);
+		ReflectionTestUtils.setField(registo, "fila", fila);
+
+		ObjectProvider<RegistoDeSql> registoProvider = mock(ObjectProvider.class);
+		when(registoProvider.getObject()).thenReturn(registo);
+		ObjectProvider<ContadorDeConsultas> contadorProvider = mock(ObjectProvider.class);
+		when(contadorProvider.getObject()).thenReturn(contador);
+		DataSourceComRegistoPostProcessor postProcessor = new DataSourceComRegistoPostProcessor();
+		ReflectionTestUtils.setField(postProcessor, "registoDeSql", registoProvider);
+		ReflectionTestUtils.setField(postProcessor, "contadorDeConsultas", contadorProvider);
+
+		dataSource = (DataSource) postProcessor.postProcessAfterInitialization(
+				new DriverManagerDataSource("jdbc:h2:mem:registo;DB_CLOSE_DELAY=-1", "sa", ""), "dataSource");
+		// Um DataSource que so encaminha nao e envolvido outra vez
+		DelegatingDataSource encaminhador = new DelegatingDataSource(dataSource);
+		assertSame(encaminhador, postProcessor.postProcessAfterInitialization(encaminhador, "encaminhador"));
+	}
+
+	@Test
+	void medeCadaExecucaoEGuardaOsParametros() throws Exception {
+		contador.iniciar("PaisController#teste");
+		try (Connection conexao = dataSource.getConnection()) {
+			conexao.createStatement().execute("create table if not exists t (id bigint, nome varchar(20))");
+			fila.clear();
+			try (PreparedStatement insert = conexao.prepareStatement("insert into t values (?, ?)")) {
+				insert.setLong(1, 1);
+				insert.setString(2, "Angola");
+				insert.executeUpdate();
+				insert.setLong(1, 2);
+				insert.setNull(2, Types.VARCHAR);
+				insert.executeUpdate();
+			}
+		}
+		ContadorDeConsultas.Pedido pedido = contador.terminar();
+
+		List<Map<String, Object>> eventos = Arrays.asList(fila.poll(), fila.poll());
+		assertEquals(Arrays.asList("1", "Angola"), eventos.get(0).get("parametros"));
+		assertEquals(Arrays.asList("2", "null"), eventos.get(1).get("parametros"));
+		assertEquals("PaisController#teste", eventos.get(0).get("endpoint"));
+		assertTrue((Double) eventos.get(0).get("duracaoMs") > 0);
+
+		assertEquals(3, pedido.getStatements());
+		assertEquals(Integer.valueOf(2), pedido.getRepeticoes().get("insert into t values (?, ?)"));
+	}
+
+	@Test
+	void loteEContadoNumaSoExecucao() throws Exception {
+		try (Connection conexao = dataSource.getConnection()) {
+			conexao.createStatement().execute("create table if not exists l (id bigint)");
+			fila.clear();
+			try (PreparedStatement insert = conexao.prepareStatement("insert into l values (?)")) {
+				for (int i = 0; i < 3; i++) {
+					insert.setLong(1, i);
+					insert.addBatch();
+				}
+				insert.executeBatch();
+			}
+		}
+
+		Map<String, Object> evento = fila.poll();
+		assertEquals(3, evento.get("lote"));
+		assertTrue(fila.isEmpty());
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.gasparcossa.springbootapiproject.metrics;
+
+import static com.gasparcossa.springbootapiproject.PaisesDeTeste.novoPais;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.gasparcossa.springbootapiproject.service.PaisService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class RegistoDeSqlEndpointTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private PaisService paisService;
+
+	@Test
+	void mostraOsAgregadosEZeraNoDelete() throws Exception {
+		paisService.savePais(novoPais("Togo", "Lome"));
+
+		mockMvc.perform(get("/actuator/sqllog"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.configuracao.orcamentoPorPedido").value(10))
+				.andExpect(jsonPath("$.statements[*].sql", hasItem(startsWith("insert into pais"))));
+
+		mockMvc.perform(delete("/actuator/sqllog")).andExpect(status().is2xxSuccessful());
+
+		mockMvc.perform(get("/actuator/sqllog"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.statements", empty()))
+				.andExpect(jsonPath("$.configuracao.repeticoesPorPedido").value(2));
+	}
+
+}
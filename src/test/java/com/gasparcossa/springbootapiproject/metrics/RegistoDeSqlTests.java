@@ -0,0 +1,123 @@
+package com.gasparcossa.springbootapiproject.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * O escritor nao e iniciado: os eventos ficam na fila para serem verificados
+ */
+class RegistoDeSqlTests {
+
+	private final ContadorDeConsultas contador = new ContadorDeConsultas();
+	private RegistoDeSql registo;
+	private BlockingQueue<Map<String, Object>> fila;
+
+	@BeforeEach
+	void setUp() {
+		registo = new RegistoDeSql();
+		ReflectionTestUtils.setField(registo, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(registo, "limiarMs", 100L);
+		ReflectionTestUtils.setField(registo, "amostragem", 0.0);
+		ReflectionTestUtils.setField(registo, "orcamentoPorPedido", 3);
+		ReflectionTestUtils.setField(registo, "repeticoesPorPedido", 2);
+		fila = new ArrayBlockingQueue<Map<String, Object>>(2);
+		ReflectionTestUtils.setField(registo, "fila", fila);
+	}
+
+	@Test
+	void statementLentoEntraNaFilaComOsParametros() {
+		Map<Integer, Object> parametros = new TreeMap<Integer, Object>();
+		parametros.put(2, "Luanda");
+		parametros.put(1, 7L);
+
+		registo.registar("select * from pais where id = ? and capital = ?", parametros, 0, 150_000_000L, true,
+				"PaisController#getPaisById");
+		registo.registar("select 1", Collections.<Integer, Object>emptyMap(), 0, 1_000L, true, null);
+
+		assertEquals(1, fila.size());
+		Map<String, Object> evento = fila.peek();
+		assertEquals("lento", evento.get("tipo"));
+		assertEquals(150.0, evento.get("duracaoMs"));
+		assertEquals(Arrays.asList("7", "Luanda"), evento.get("parametros"));
+		assertEquals(1L, registo.getResumo().get("lentos"));
+	}
+
+	@Test
+	void filaCheiaDescartaEConta() {
+		for (int i = 0; i < 5; i++) {
+			registo.registar("select " + i, Collections.<Integer, Object>emptyMap(), 0, 200_000_000L, true, null);
+		}
+
+		assertEquals(2, fila.size());
+		assertEquals(3L, registo.getResumo().get("descartados"));
+		// Os agregados nao dependem da fila
+		assertEquals(5, statements().size());
+	}
+
+	@Test
+	void pedidoAcimaDoOrcamentoEAssinalado() {
+		registo.verificarOrcamento(pedido("PaisController#a", "select 1", "select 2", "select 3"));
+		registo.verificarOrcamento(pedido("PaisController#b", "select 1", "select 2", "select 3", "select 4"));
+
+		assertEquals(Collections.singletonMap("PaisController#b", 1L),
+				registo.getResumo().get("pedidosAcimaDoOrcamento"));
+		assertEquals("orcamento", fila.peek().get("tipo"));
+	}
+
+	@Test
+	void sqlRepetidoEAssinaladoDentroDoOrcamento() {
+		registo.verificarOrcamento(pedido("PaisController#c", "select 1", "select 1"));
+
+		Map<String, Object> evento = fila.peek();
+		assertEquals("repeticao", evento.get("tipo"));
+		assertEquals(Collections.singletonMap("select 1", 2), evento.get("repetidos"));
+		assertEquals(1, recentes().size());
+	}
+
+	@Test
+	void limparZeraOsAgregados() {
+		registo.registar("select 1", Collections.<Integer, Object>emptyMap(), 0, 200_000_000L, false, null);
+		registo.verificarOrcamento(pedido("PaisController#d", "select 1", "select 1"));
+
+		Map<String, Object> resumo = statements().get(0);
+		assertEquals(1L, resumo.get("execucoes"));
+		assertEquals(1L, resumo.get("erros"));
+		assertEquals(200.0, resumo.get("maximoMs"));
+
+		registo.limpar();
+		assertTrue(statements().isEmpty());
+		assertTrue(recentes().isEmpty());
+		assertEquals(0L, registo.getResumo().get("lentos"));
+	}
+
+	private ContadorDeConsultas.Pedido pedido(String endpoint, String... sqls) {
+		contador.iniciar(endpoint);
+		for (String sql : sqls) {
+			contador.registar(sql);
+		}
+		return contador.terminar();
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Map<String, Object>> statements() {
+		return (List<Map<String, Object>>) registo.getResumo().get("statements");
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Map<String, Object>> recentes() {
+		return (List<Map<String, Object>>) registo.getResumo().get("pedidosRecentesAcimaDoOrcamento");
+	}
+
+}
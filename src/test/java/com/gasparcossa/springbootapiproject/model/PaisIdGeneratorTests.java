@@ -0,0 +1,173 @@
+package com.gasparcossa.springbootapiproject.model;
+
+import static com.gasparcossa.springbootapiproject.PaisesDeTeste.novoPais;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+/**
+ * Simula varias instancias da API, cada uma com o seu EntityManagerFactory,
+ * inserindo paises na mesma Base de dados ao mesmo tempo
+ */
+class PaisIdGeneratorTests {
+
+	private static final int FABRICAS = 2;
+	private static final int THREADS_POR_FABRICA = 4;
+	private static final int PAISES_POR_THREAD = 250;
+	private static final int TOTAL = FABRICAS * THREADS_POR_FABRICA * PAISES_POR_THREAD;
+
+	@Test
+	void instanciasConcorrentesNaoRepetemIds() throws Exception {
+		Resultado resultado = inserirEmParalelo("blocos", 50);
+
+		assertEquals(TOTAL, resultado.ids.size());
+		// Cada fabrica pode precisar de uma chamada extra para inicializar o seu bloco
+		assertTrue(resultado.chamadasASequencia <= TOTAL / 50 + 2 * FABRICAS,
+				"Chamadas a sequencia: " + resultado.chamadasASequencia);
+	}
+
+	@Test
+	void blocosReduzemAsChamadasASequencia() throws Exception {
+		Resultado semBlocos = inserirEmParalelo("sem_blocos", 1);
+		Resultado comBlocos = inserirEmParalelo("com_blocos", 50);
+
+		assertEquals(TOTAL, semBlocos.ids.size());
+		assertEquals(TOTAL, comBlocos.ids.size());
+		// Sem blocos cada insert le a sequencia, com blocos de 50 uma leitura serve
+		// 50 inserts, mais a primeira de cada fabrica
+		assertTrue(semBlocos.chamadasASequencia >= TOTAL, "Chamadas sem blocos: " + semBlocos.chamadasASequencia);
+		assertTrue(comBlocos.chamadasASequencia <= TOTAL / 50 + 2 * FABRICAS,
+				"Chamadas com blocos: " + comBlocos.chamadasASequencia);
+		assertTrue(comBlocos.chamadasASequencia * 10 < semBlocos.chamadasASequencia);
+	}
+
+	private Resultado inserirEmParalelo(String baseDeDados, int tamanhoBloco) throws Exception {
+		AtomicLong chamadasASequencia = new AtomicLong();
+		DataSource dataSource = contarChamadasASequencia(new DriverManagerDataSource(
+				"jdbc:h2:mem:" + baseDeDados + ";DB_CLOSE_DELAY=-1", "sa", ""), chamadasASequencia);
+
+		// A primeira fabrica cria o esquema e as outras usam-no como estiver
+		List<EntityManagerFactory> fabricas = new ArrayList<EntityManagerFactory>();
+		for (int i = 0; i < FABRICAS; i++) {
+			fabricas.add(criarFabrica(dataSource, i == 0 ? "create" : "none", tamanhoBloco));
+		}
+		chamadasASequencia.set(0);
+
+		ExecutorService executor = Executors.newFixedThreadPool(FABRICAS * THREADS_POR_FABRICA);
+		AtomicInteger contador = new AtomicInteger();
+		List<Future<List<Long>>> tarefas = new ArrayList<Future<List<Long>>>();
+		try {
+			for (EntityManagerFactory fabrica : fabricas) {
+				for (int t = 0; t < THREADS_POR_FABRICA; t++) {
+					tarefas.add(executor.submit(() -> inserir(fabrica, contador)));
+				}
+			}
+			Set<Long> ids = new HashSet<Long>();
+			for (Future<List<Long>> tarefa : tarefas) {
+				ids.addAll(tarefa.get());
+			}
+			return new Resultado(ids, chamadasASequencia.get());
+		} finally {
+			executor.shutdownNow();
+			for (EntityManagerFactory fabrica : fabricas) {
+				fabrica.close();
+			}
+		}
+	}
+
+	private static List<Long> inserir(EntityManagerFactory fabrica, AtomicInteger contador) {
+		List<Long> ids = new ArrayList<Long>();
+		EntityManager entityManager = fabrica.createEntityManager();
+		try {
+			for (int i = 0; i < PAISES_POR_THREAD; i += 25) {
+				entityManager.getTransaction().begin();
+				List<Pais> paises = new ArrayList<Pais>();
+				for (int j = 0; j < 25; j++) {
+					Pais pais = novoPais(contador.getAndIncrement());
+					entityManager.persist(pais);
+					paises.add(pais);
+				}
+				entityManager.getTransaction().commit();
+				for (Pais pais : paises) {
+					ids.add(pais.getId());
+				}
+				entityManager.clear();
+			}
+		} finally {
+			entityManager.close();
+		}
+		return ids;
+	}
+
+	private static EntityManagerFactory criarFabrica(DataSource dataSource, String ddl, int tamanhoBloco) {
+		Map<String, Object> propriedades = new HashMap<String, Object>();
+		propriedades.put("hibernate.hbm2ddl.auto", ddl);
+		propriedades.put(PaisIdGenerator.TAMANHO_BLOCO, String.valueOf(tamanhoBloco));
+
+		LocalContainerEntityManagerFactoryBean fabrica = new LocalContainerEntityManagerFactoryBean();
+		fabrica.setDataSource(dataSource);
+		fabrica.setPackagesToScan(Pais.class.getPackage().getName());
+		fabrica.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+		fabrica.setJpaPropertyMap(propriedades);
+		fabrica.afterPropertiesSet();
+		return fabrica.getObject();
+	}
+
+	// Conta os statements preparados que leem o proximo valor da sequencia
+	private static DataSource contarChamadasASequencia(DataSource dataSource, AtomicLong chamadas) {
+		return new DelegatingDataSource(dataSource) {
+			@Override
+			public Connection getConnection() throws SQLException {
+				Connection connection = super.getConnection();
+				return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+						new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+							if (method.getName().equals("prepareStatement")
+									&& ((String) args[0]).toLowerCase().contains("pais_seq")
+									&& !((String) args[0]).toLowerCase().startsWith("create")) {
+								chamadas.incrementAndGet();
+							}
+							try {
+								return method.invoke(connection, args);
+							} catch (InvocationTargetException ex) {
+								throw ex.getCause();
+							}
+						});
+			}
+		};
+	}
+
+	private static class Resultado {
+
+		private final Set<Long> ids;
+		private final long chamadasASequencia;
+
+		Resultado(Set<Long> ids, long chamadasASequencia) {
+			this.ids = ids;
+			this.chamadasASequencia = chamadasASequencia;
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.gasparcossa.springbootapiproject.model;
+
+import static com.gasparcossa.springbootapiproject.PaisesDeTeste.novoPais;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class PaisSequenciaTests {
+
+	@Test
+	void sequenciaComOIncrementoDoBlocoPassa() {
+		DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:sequencia_igual;DB_CLOSE_DELAY=-1", "sa", "");
+		EntityManagerFactory fabrica = criarFabrica(dataSource, "create", 50);
+		try {
+			sequencia(fabrica, dataSource).verificar();
+		} finally {
+			fabrica.close();
+		}
+	}
+
+	@Test
+	void incrementoDiferenteDoBlocoImpedeOArranque() {
+		DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:sequencia_diferente;DB_CLOSE_DELAY=-1", "sa",
+				"");
+		// A sequencia ja existe com INCREMENT BY 50 e o ddl-auto nao a altera
+		criarFabrica(dataSource, "create", 50).close();
+		EntityManagerFactory fabrica = criarFabrica(dataSource, "update", 20);
+		try {
+			IllegalStateException erro = assertThrows(IllegalStateException.class,
+					() -> sequencia(fabrica, dataSource).verificar());
+			assertTrue(erro.getMessage().contains("INCREMENT BY 50"), erro.getMessage());
+		} finally {
+			fabrica.close();
+		}
+	}
+
+	@Test
+	void tabelaDeAntesDaSequenciaAvancaASequenciaParaDepoisDoMaiorId() {
+		DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:sequencia_atrasada;DB_CLOSE_DELAY=-1", "sa",
+				"");
+		EntityManagerFactory fabrica = criarFabrica(dataSource, "create", 50);
+		try {
+			// Ids gravados pelo gerador increment, com a sequencia nova ainda em 1
+			JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+			for (int id = 1; id <= 120; id++) {
+				jdbcTemplate.update("insert into pais (id, nome, capital, regiao, subRegiao, area, versao) "
+						+ "values (?, 'Pais', ?, 'Africa', 'Austral', 1000, 0)", id, "Capital" + id);
+			}
+
+			sequencia(fabrica, dataSource).verificar();
+
+			EntityManager entityManager = fabrica.createEntityManager();
+			try {
+				entityManager.getTransaction().begin();
+				Pais pais = novoPais("Angola", "Luanda");
+				entityManager.persist(pais);
+				entityManager.getTransaction().commit();
+				assertTrue(pais.getId() > 120, "Id gerado: " + pais.getId());
+			} finally {
+				entityManager.close();
+			}
+		} finally {
+			fabrica.close();
+		}
+	}
+
+	private static PaisSequencia sequencia(EntityManagerFactory fabrica, DataSource dataSource) {
+		PaisSequencia sequencia = new PaisSequencia();
+		ReflectionTestUtils.setField(sequencia, "entityManagerFactory", fabrica);
+		ReflectionTestUtils.setField(sequencia, "dataSource", dataSource);
+		return sequencia;
+	}
+
+	private static EntityManagerFactory criarFabrica(DataSource dataSource, String ddl, int tamanhoBloco) {
+		Map<String, Object> propriedades = new HashMap<String, Object>();
+		propriedades.put("hibernate.hbm2ddl.auto", ddl);
+		propriedades.put(PaisIdGenerator.TAMANHO_BLOCO, String.valueOf(tamanhoBloco));
+
+		LocalContainerEntityManagerFactoryBean fabrica = new LocalContainerEntityManagerFactoryBean();
+		fabrica.setDataSource(dataSource);
+		fabrica.setPackagesToScan(Pais.class.getPackage().getName());
+		fabrica.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+		fabrica.setJpaPropertyMap(propriedades);
+		fabrica.afterPropertiesSet();
+		return fabrica.getObject();
+	}
+
+}
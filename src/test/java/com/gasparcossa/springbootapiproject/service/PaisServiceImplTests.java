@@ -0,0 +1,271 @@
+package com.gasparcossa.springbootapiproject.service;
+
+import static com.gasparcossa.springbootapiproject.PaisesDeTeste.letras;
+import static com.gasparcossa.springbootapiproject.PaisesDeTeste.novoPais;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.gasparcossa.springbootapiproject.dto.LoteResultado;
+import com.gasparcossa.springbootapiproject.dto.PaisPagina;
+import com.gasparcossa.springbootapiproject.dto.PaisPatch;
+import com.gasparcossa.springbootapiproject.dto.PaisesPorIds;
+import com.gasparcossa.springbootapiproject.exception.ConflitoDeVersaoException;
+import com.gasparcossa.springbootapiproject.exception.RecursoNaoEncontradoException;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import com.gasparcossa.springbootapiproject.repository.PaisRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class PaisServiceImplTests {
+
+	@Autowired
+	private PaisService paisService;
+
+	@Autowired
+	private PaisRepository paisRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		paisRepository.deleteAllInBatch();
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void sameCapitalInPaisesCustaUmaConsultaIndependenteDoTamanhoDaTabela() {
+		semear(0, 10);
+		long consultasComPoucasLinhas = consultasDaVerificacao("Capital" + letras(5));
+
+		semear(10, 5000);
+		long consultasComMuitasLinhas = consultasDaVerificacao("Capital" + letras(4000));
+
+		assertEquals(1, consultasComPoucasLinhas);
+		assertEquals(consultasComPoucasLinhas, consultasComMuitasLinhas);
+	}
+
+	@Test
+	void sameCapitalInPaisesIgnoraOPaisQueEstaSendoAtualizado() {
+		Pais pais = paisRepository.save(novoPais("Angola", "Luanda"));
+
+		assertTrue(paisService.sameCapitalInPaises(novoPais("Outro", "Luanda")));
+		assertFalse(paisService.sameCapitalInPaises(novoPais("Angola", "Luanda"), pais.getId()));
+		assertFalse(paisService.sameCapitalInPaises(novoPais("Outro", "Maputo")));
+	}
+
+	@Test
+	void indiceUnicoRejeitaCapitalRepetida() {
+		paisRepository.save(novoPais("Angola", "Luanda"));
+
+		assertThrows(DataIntegrityViolationException.class,
+				() -> paisRepository.saveAndFlush(novoPais("Outro", "Luanda")));
+	}
+
+	@Test
+	void updatePaisSemVersaoDevolveANovaVersao() {
+		Pais pais = paisRepository.save(novoPais("Angola", "Luanda"));
+
+		Pais atualizado = paisService.updatePais(novoPais("Angola", "Luanda"), pais.getId());
+
+		assertEquals(pais.getVersao() + 1, atualizado.getVersao());
+		assertEquals(atualizado.getVersao(), paisRepository.findById(pais.getId()).get().getVersao());
+	}
+
+	@Test
+	void updatePaisComVersaoDevolveANovaVersao() {
+		Pais pais = paisRepository.save(novoPais("Angola", "Luanda"));
+		Pais alteracao = novoPais("Angola", "Luanda");
+		alteracao.setVersao(pais.getVersao());
+
+		assertEquals(pais.getVersao() + 1, paisService.updatePais(alteracao, pais.getId()).getVersao());
+	}
+
+	@Test
+	void escritaComVersaoAntigaEConflitoESemPaisEInexistente() {
+		Pais pais = paisRepository.save(novoPais("Angola", "Luanda"));
+		paisService.updatePais(novoPais("Angola", "Luanda"), pais.getId());
+		Pais desatualizado = novoPais("Angola", "Luanda");
+		desatualizado.setVersao(pais.getVersao());
+		PaisPatch patch = new PaisPatch();
+		patch.setArea(2000.0);
+		patch.setVersao(pais.getVersao());
+
+		// O pais existe mas mudou de versao: 409
+		assertThrows(ConflitoDeVersaoException.class, () -> paisService.updatePais(desatualizado, pais.getId()));
+		assertThrows(ConflitoDeVersaoException.class, () -> paisService.updatePaisParcialmente(patch, pais.getId()));
+		// O pais nao existe, com ou sem versao: 404
+		long inexistente = pais.getId() + 1000;
+		assertThrows(RecursoNaoEncontradoException.class, () -> paisService.updatePais(desatualizado, inexistente));
+		assertThrows(RecursoNaoEncontradoException.class,
+				() -> paisService.updatePais(novoPais("Angola", "Luanda"), inexistente));
+		assertThrows(RecursoNaoEncontradoException.class,
+				() -> paisService.updatePaisParcialmente(patch, inexistente));
+		assertThrows(RecursoNaoEncontradoException.class, () -> paisService.deletePais(inexistente));
+	}
+
+	@Test
+	void savePaisesEmLoteInsereEmBatchesEEsvaziaOContexto() {
+		List<Pais> paises = new ArrayList<Pais>();
+		for (int i = 0; i < 120; i++) {
+			paises.add(novoPais(i));
+		}
+		statistics.clear();
+
+		LoteResultado resultado = paisService.savePaisesEmLote(paises);
+
+		assertEquals(120, resultado.getRecebidos());
+		assertEquals(120, resultado.getInseridos());
+		assertTrue(resultado.getErros().isEmpty());
+		assertEquals(120, statistics.getEntityInsertCount());
+		// Um flush a cada batch de 50 mais o do commit
+		assertEquals(3, statistics.getFlushCount());
+		assertEquals(120, paisRepository.count());
+	}
+
+	@Test
+	void savePaisesEmLoteRejeitaSoOsPaisesInvalidosOuComCapitalRepetida() {
+		paisRepository.save(novoPais("Angola", "Luanda"));
+		Pais semNome = novoPais("", "Praia");
+
+		LoteResultado resultado = paisService.savePaisesEmLote(Arrays.asList(novoPais("Mocambique", "Maputo"), null,
+				semNome, novoPais("Outro", "Luanda"), novoPais("Brasil", "Brasilia"), novoPais("Repetido", "Maputo")));
+
+		assertEquals(6, resultado.getRecebidos());
+		assertEquals(2, resultado.getInseridos());
+		assertEquals(Arrays.asList(1, 2, 3, 5), indices(resultado));
+		assertEquals(Arrays.asList("Nao podes inserir uma capital ja cadastrada!"),
+				resultado.getErros().get(2).getMensagens());
+		assertEquals(Arrays.asList("Nao podes inserir uma capital ja cadastrada!"),
+				resultado.getErros().get(3).getMensagens());
+		assertEquals("Maputo", paisRepository.findById(resultado.getIds().get(0)).get().getCapital());
+		assertEquals("Brasilia", paisRepository.findById(resultado.getIds().get(1)).get().getCapital());
+		assertEquals(3, paisRepository.count());
+	}
+
+	@Test
+	void getPaisByIdDevolveUmPaisForaDoContextoDePersistencia() {
+		long id = paisRepository.save(novoPais("Angola", "Luanda")).getId();
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			Pais pais = paisService.getPaisById(id);
+
+			// Partilhado com as leituras iguais, nao pode ser a entidade gerida de quem consultou
+			assertFalse(entityManager.contains(pais));
+			assertEquals("Angola", pais.getNome());
+		});
+	}
+
+	@Test
+	void getPaisesByIdsDevolveNaOrdemPedidaComRepetidosEInexistentes() {
+		Pais angola = paisRepository.save(novoPais("Angola", "Luanda"));
+		Pais brasil = paisRepository.save(novoPais("Brasil", "Brasilia"));
+		long inexistente = brasil.getId() + 1000;
+		long outroInexistente = brasil.getId() + 2000;
+
+		PaisesPorIds resultado = paisService.getPaisesByIds(Arrays.asList(brasil.getId(), inexistente,
+				angola.getId(), brasil.getId(), outroInexistente, inexistente));
+
+		assertEquals(Arrays.asList("Brasil", "Angola", "Brasil"), nomes(resultado.getPaises()));
+		// Os ids inexistentes aparecem uma vez, na ordem em que foram pedidos
+		assertEquals(Arrays.asList(inexistente, outroInexistente), resultado.getNaoEncontrados());
+	}
+
+	@Test
+	void getPaisesByIdsFazUmaConsultaINPorCadaMilIdsDistintos() {
+		semear(0, 1500);
+		List<Long> ids = new ArrayList<Long>();
+		long maiorId = 0;
+		for (Pais pais : paisRepository.findAll()) {
+			ids.add(pais.getId());
+			maiorId = Math.max(maiorId, pais.getId());
+		}
+		List<Long> repetidos = new ArrayList<Long>(ids.subList(0, 500));
+		for (int i = 1; i <= 1000; i++) {
+			ids.add(maiorId + i);
+		}
+		// Os repetidos nao contam para o tamanho das consultas
+		ids.addAll(repetidos);
+		statistics.clear();
+
+		PaisesPorIds resultado = paisService.getPaisesByIds(ids);
+
+		assertEquals(3, statistics.getPrepareStatementCount());
+		assertEquals(2000, resultado.getPaises().size());
+		assertEquals(1000, resultado.getNaoEncontrados().size());
+	}
+
+	@Test
+	void getPaginaDePaisesAceitaOIdEIgnoraCamposRepetidos() {
+		Pais pais = paisRepository.save(novoPais("Angola", "Luanda"));
+
+		PaisPagina comRepetidos = paisService.getPaginaDePaises(0, 10, Arrays.asList("nome", "id", "nome"));
+		PaisPagina soOId = paisService.getPaginaDePaises(0, 10, Arrays.asList("id"));
+
+		Map<?, ?> linha = (Map<?, ?>) comRepetidos.getConteudo().get(0);
+		assertEquals(Arrays.asList("id", "nome"), new ArrayList<Object>(linha.keySet()));
+		assertEquals(pais.getId(), linha.get("id"));
+		assertEquals("Angola", linha.get("nome"));
+		assertEquals(Arrays.asList("id"), new ArrayList<Object>(((Map<?, ?>) soOId.getConteudo().get(0)).keySet()));
+	}
+
+	private static List<String> nomes(List<Pais> paises) {
+		List<String> nomes = new ArrayList<String>();
+		for (Pais pais : paises) {
+			nomes.add(pais.getNome());
+		}
+		return nomes;
+	}
+
+	private static List<Integer> indices(LoteResultado resultado) {
+		List<Integer> indices = new ArrayList<Integer>();
+		for (LoteResultado.ErroDeItem erro : resultado.getErros()) {
+			indices.add(erro.getIndice());
+		}
+		return indices;
+	}
+
+	private long consultasDaVerificacao(String capital) {
+		statistics.clear();
+		assertTrue(paisService.sameCapitalInPaises(novoPais("Qualquer", capital)));
+		// Nenhuma entidade deve ser carregada para responder a verificacao
+		assertEquals(0, statistics.getEntityLoadCount());
+		return statistics.getPrepareStatementCount();
+	}
+
+	private void semear(int inicio, int fim) {
+		List<Pais> paises = new ArrayList<Pais>();
+		for (int i = inicio; i < fim; i++) {
+			paises.add(novoPais(i));
+		}
+		paisRepository.saveAll(paises);
+	}
+
+}
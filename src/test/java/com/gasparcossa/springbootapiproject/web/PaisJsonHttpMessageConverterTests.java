@@ -0,0 +1,68 @@
+package com.gasparcossa.springbootapiproject.web;
+
+import static com.gasparcossa.springbootapiproject.PaisesDeTeste.novoPais;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gasparcossa.springbootapiproject.cache.PaisJsonCache;
+import com.gasparcossa.springbootapiproject.dto.PaisPagina;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class PaisJsonHttpMessageConverterTests {
+
+	@Test
+	void listaEPaginaSaemIguaisAoJackson() throws Exception {
+		ObjectMapper objectMapper = new ObjectMapper();
+		PaisJsonHttpMessageConverter conversor = conversor(objectMapper);
+		List<Pais> paises = paises();
+
+		assertEquals(objectMapper.writeValueAsString(paises), escrever(conversor, paises));
+		PaisPagina pagina = new PaisPagina(paises, 42L);
+		assertEquals(objectMapper.writeValueAsString(pagina), escrever(conversor, pagina));
+		PaisPagina ultima = new PaisPagina(paises, null);
+		assertEquals(objectMapper.writeValueAsString(ultima), escrever(conversor, ultima));
+	}
+
+	@Test
+	void paginaSegueAConfiguracaoDoObjectMapper() throws Exception {
+		ObjectMapper objectMapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+		PaisPagina ultima = new PaisPagina(paises(), null);
+
+		String json = escrever(conversor(objectMapper), ultima);
+
+		assertEquals(objectMapper.writeValueAsString(ultima), json);
+		assertEquals(-1, json.indexOf("proximoCursor"));
+	}
+
+	private static List<Pais> paises() {
+		Pais angola = novoPais("Angola", "Luanda");
+		angola.setId(1);
+		angola.setVersao(0L);
+		Pais brasil = novoPais("Brasil", "Brasilia");
+		brasil.setId(2);
+		brasil.setVersao(3L);
+		return Arrays.asList(angola, brasil);
+	}
+
+	private static PaisJsonHttpMessageConverter conversor(ObjectMapper objectMapper) {
+		PaisJsonCache paisJsonCache = new PaisJsonCache();
+		ReflectionTestUtils.setField(paisJsonCache, "objectMapper", objectMapper);
+		ReflectionTestUtils.setField(paisJsonCache, "tamanhoMaximo", 10);
+		return new PaisJsonHttpMessageConverter(objectMapper, paisJsonCache);
+	}
+
+	private static String escrever(PaisJsonHttpMessageConverter conversor, Object corpo) throws Exception {
+		MockHttpOutputMessage saida = new MockHttpOutputMessage();
+		conversor.write(corpo, corpo.getClass(), MediaType.APPLICATION_JSON, saida);
+		return saida.getBodyAsString(StandardCharsets.UTF_8);
+	}
+
+}
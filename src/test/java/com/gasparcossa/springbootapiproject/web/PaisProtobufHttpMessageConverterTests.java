@@ -0,0 +1,70 @@
+package com.gasparcossa.springbootapiproject.web;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.gasparcossa.springbootapiproject.dto.PaisPagina;
+import com.gasparcossa.springbootapiproject.model.Pais;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+class PaisProtobufHttpMessageConverterTests {
+
+	private static final MediaType PROTOBUF = PaisProtobufHttpMessageConverter.PROTOBUF;
+
+	private final PaisProtobufHttpMessageConverter conversor = new PaisProtobufHttpMessageConverter();
+
+	@Test
+	void aceitaSoPaisesListasDePaisesEPaginas() {
+		assertTrue(conversor.canWrite(new ParameterizedTypeReference<List<Pais>>() {
+		}.getType(), ArrayList.class, PROTOBUF));
+		assertTrue(conversor.canWrite(Pais.class, Pais.class, PROTOBUF));
+		assertTrue(conversor.canWrite(PaisPagina.class, PaisPagina.class, PROTOBUF));
+		// Corpo de ResponseEntity<Object>, como o create e o update
+		assertTrue(conversor.canWrite(Object.class, Pais.class, PROTOBUF));
+
+		assertFalse(conversor.canWrite(new ParameterizedTypeReference<List<String>>() {
+		}.getType(), ArrayList.class, PROTOBUF));
+		// As listas de erros do GlobalExceptionHandler sao ResponseEntity<Object>
+		assertFalse(conversor.canWrite(Object.class, ArrayList.class, PROTOBUF));
+		assertFalse(conversor.canWrite(ArrayList.class, PROTOBUF));
+	}
+
+	@Test
+	void linhaProjetadaSaiComoPaisParcial() throws Exception {
+		Map<String, Object> linha = new LinkedHashMap<String, Object>();
+		linha.put("id", 1L);
+		linha.put("nome", "Angola");
+		Pais pais = new Pais();
+		pais.setId(1);
+		pais.setNome("Angola");
+
+		assertArrayEquals(escrever(Collections.singletonList(pais)),
+				escrever(new PaisPagina(Collections.singletonList(linha), null)));
+	}
+
+	@Test
+	void paginaLevaOCursorNoHeader() throws Exception {
+		MockHttpOutputMessage saida = new MockHttpOutputMessage();
+		conversor.write(new PaisPagina(new ArrayList<Pais>(), 42L), PaisPagina.class, PROTOBUF, saida);
+
+		assertEquals("42", saida.getHeaders().getFirst("X-Proximo-Cursor"));
+		assertEquals(0, saida.getBodyAsBytes().length);
+	}
+
+	private byte[] escrever(Object corpo) throws Exception {
+		MockHttpOutputMessage saida = new MockHttpOutputMessage();
+		conversor.write(corpo, corpo.getClass(), PROTOBUF, saida);
+		return saida.getBodyAsBytes();
+	}
+
+}